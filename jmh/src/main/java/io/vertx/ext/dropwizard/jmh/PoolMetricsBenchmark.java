@@ -0,0 +1,148 @@
+package io.vertx.ext.dropwizard.jmh;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.spi.metrics.PoolMetrics;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+import io.vertx.ext.dropwizard.impl.VertxMetricsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pool metrics with the timer contexts they used to allocate for each task, run with {@code -prof gc}
+ * to compare the allocations. Both update the same timers, created with the {@code reservoir} options:
+ * <ul>
+ *   <li>{@code sameThread}: a task queued and executed by the same thread</li>
+ *   <li>{@code handoff}: a task queued by a thread, e.g an event-loop thread, and executed by another thread,
+ *   e.g a worker thread</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolMetricsBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Pool {
+
+    @Param({"samples", "contexts"})
+    public String impl;
+
+    @Param({"default", "hdr", "sharded"})
+    public String reservoir;
+
+    PoolMetrics<Object, Object> metrics;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+      MetricRegistry registry = new MetricRegistry();
+      DropwizardMetricsOptions options = new DropwizardMetricsOptions()
+        .setHdrTimersEnabled(reservoir.equals("hdr"))
+        .setShardedMetricsEnabled(reservoir.equals("sharded"));
+      VertxMetricsImpl vertxMetrics = new VertxMetricsImpl(registry, false, new VertxOptions(), options, "vertx");
+      metrics = (PoolMetrics) vertxMetrics.createPoolMetrics("worker", "benchmark", 20);
+      if (impl.equals("contexts")) {
+        // the timers registered by the pool metrics
+        metrics = (PoolMetrics) new TimerContextPoolMetrics(registry, "vertx.pools.worker.benchmark");
+      }
+    }
+  }
+
+  @State(Scope.Group)
+  public static class Queue {
+
+    final ArrayBlockingQueue<Object> tasks = new ArrayBlockingQueue<>(1024);
+  }
+
+  @Benchmark
+  public void sameThread(Pool pool) {
+    PoolMetrics<Object, Object> metrics = pool.metrics;
+    Object task = metrics.enqueue();
+    metrics.dequeue(task);
+    metrics.end(metrics.begin());
+  }
+
+  @Benchmark
+  @Group("handoff")
+  @GroupThreads(1)
+  public void submit(Pool pool, Queue queue) {
+    Object task = pool.metrics.enqueue();
+    if (!queue.tasks.offer(task)) {
+      // rejected
+      pool.metrics.dequeue(task);
+    }
+  }
+
+  @Benchmark
+  @Group("handoff")
+  @GroupThreads(1)
+  public void execute(Pool pool, Queue queue) {
+    Object task = queue.tasks.poll();
+    if (task != null) {
+      PoolMetrics<Object, Object> metrics = pool.metrics;
+      metrics.dequeue(task);
+      metrics.end(metrics.begin());
+    }
+  }
+
+  /**
+   * The pool metrics timing each task with a {@link Timer.Context} of the timers registered under the base name.
+   */
+  static class TimerContextPoolMetrics implements PoolMetrics<Timer.Context, Timer.Context> {
+
+    private final Timer queueDelay;
+    private final Counter queueSize;
+    private final Timer usage;
+    private final Counter inUse;
+
+    TimerContextPoolMetrics(MetricRegistry registry, String baseName) {
+      queueDelay = registry.timer(MetricRegistry.name(baseName, "queue-delay"));
+      queueSize = registry.counter(MetricRegistry.name(baseName, "queue-size"));
+      usage = registry.timer(MetricRegistry.name(baseName, "usage"));
+      inUse = registry.counter(MetricRegistry.name(baseName, "in-use"));
+    }
+
+    @Override
+    public Timer.Context enqueue() {
+      queueSize.inc();
+      return queueDelay.time();
+    }
+
+    @Override
+    public void dequeue(Timer.Context queueMetric) {
+      queueSize.dec();
+      queueMetric.stop();
+    }
+
+    @Override
+    public Timer.Context begin() {
+      inUse.inc();
+      return usage.time();
+    }
+
+    @Override
+    public void end(Timer.Context usageMetric) {
+      inUse.dec();
+      usageMetric.stop();
+    }
+  }
+}
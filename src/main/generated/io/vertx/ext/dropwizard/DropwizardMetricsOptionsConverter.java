@@ -35,6 +35,14 @@ public class DropwizardMetricsOptionsConverter {
             });
           }
           break;
+        case "monitoredEventBusAddresses":
+          if (member.getValue() instanceof JsonArray) {
+            ((Iterable<Object>)member.getValue()).forEach( item -> {
+              if (item instanceof JsonObject)
+                obj.addMonitoredEventBusAddress(new io.vertx.ext.dropwizard.Match((io.vertx.core.json.JsonObject)item));
+            });
+          }
+          break;
         case "monitoredHttpServerUris":
           if (member.getValue() instanceof JsonArray) {
             ((Iterable<Object>)member.getValue()).forEach( item -> {
@@ -81,6 +89,71 @@ public class DropwizardMetricsOptionsConverter {
             obj.setBaseName((String)member.getValue());
           }
           break;
+        case "matchCacheSize":
+          if (member.getValue() instanceof Number) {
+            obj.setMatchCacheSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "hdrTimersEnabled":
+          if (member.getValue() instanceof Boolean) {
+            obj.setHdrTimersEnabled((Boolean)member.getValue());
+          }
+          break;
+        case "hdrTimersPrecision":
+          if (member.getValue() instanceof Number) {
+            obj.setHdrTimersPrecision(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "shardedMetricsEnabled":
+          if (member.getValue() instanceof Boolean) {
+            obj.setShardedMetricsEnabled((Boolean)member.getValue());
+          }
+          break;
+        case "maxHttpMatches":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxHttpMatches(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxRemoteHosts":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxRemoteHosts(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxEventBusHandlers":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxEventBusHandlers(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxEventBusAddresses":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxEventBusAddresses(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "leanEventBusMetricsEnabled":
+          if (member.getValue() instanceof Boolean) {
+            obj.setLeanEventBusMetricsEnabled((Boolean)member.getValue());
+          }
+          break;
+        case "topRemoteHosts":
+          if (member.getValue() instanceof Number) {
+            obj.setTopRemoteHosts(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "highRateDatagramMetricsEnabled":
+          if (member.getValue() instanceof Boolean) {
+            obj.setHighRateDatagramMetricsEnabled((Boolean)member.getValue());
+          }
+          break;
+        case "replyMetricsEnabled":
+          if (member.getValue() instanceof Boolean) {
+            obj.setReplyMetricsEnabled((Boolean)member.getValue());
+          }
+          break;
+        case "maxIdleRemoteHosts":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxIdleRemoteHosts(((Number)member.getValue()).intValue());
+          }
+          break;
       }
     }
   }
@@ -102,6 +175,11 @@ public class DropwizardMetricsOptionsConverter {
       obj.getMonitoredEventBusHandlers().forEach(item -> array.add(item.toJson()));
       json.put("monitoredEventBusHandlers", array);
     }
+    if (obj.getMonitoredEventBusAddresses() != null) {
+      JsonArray array = new JsonArray();
+      obj.getMonitoredEventBusAddresses().forEach(item -> array.add(item.toJson()));
+      json.put("monitoredEventBusAddresses", array);
+    }
     if (obj.getMonitoredHttpServerUris() != null) {
       JsonArray array = new JsonArray();
       obj.getMonitoredHttpServerUris().forEach(item -> array.add(item.toJson()));
@@ -128,5 +206,18 @@ public class DropwizardMetricsOptionsConverter {
     if (obj.getBaseName() != null) {
       json.put("baseName", obj.getBaseName());
     }
+    json.put("matchCacheSize", obj.getMatchCacheSize());
+    json.put("hdrTimersEnabled", obj.isHdrTimersEnabled());
+    json.put("hdrTimersPrecision", obj.getHdrTimersPrecision());
+    json.put("shardedMetricsEnabled", obj.isShardedMetricsEnabled());
+    json.put("maxHttpMatches", obj.getMaxHttpMatches());
+    json.put("maxRemoteHosts", obj.getMaxRemoteHosts());
+    json.put("maxEventBusHandlers", obj.getMaxEventBusHandlers());
+    json.put("maxEventBusAddresses", obj.getMaxEventBusAddresses());
+    json.put("leanEventBusMetricsEnabled", obj.isLeanEventBusMetricsEnabled());
+    json.put("topRemoteHosts", obj.getTopRemoteHosts());
+    json.put("highRateDatagramMetricsEnabled", obj.isHighRateDatagramMetricsEnabled());
+    json.put("replyMetricsEnabled", obj.isReplyMetricsEnabled());
+    json.put("maxIdleRemoteHosts", obj.getMaxIdleRemoteHosts());
   }
 }
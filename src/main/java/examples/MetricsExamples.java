@@ -68,6 +68,25 @@ public class MetricsExamples {
     ));
   }
 
+  public void setupLeanEventBusMetrics() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            setLeanEventBusMetricsEnabled(true)
+    ));
+  }
+
+  public void setupMonitoredAddresses() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            addMonitoredEventBusAddress(
+                new Match().setValue("orders")).
+            addMonitoredEventBusAddress(
+                new Match().setValue("prices\\..*").setAlias("prices").setType(MatchType.REGEX))
+    ));
+  }
+
   public void setupMonitoredUris() {
     Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
         new DropwizardMetricsOptions().
@@ -87,6 +106,15 @@ public class MetricsExamples {
     ));
   }
 
+  public void setupMonitoredUrisWithTemplates() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            addMonitoredHttpServerUri(new Match().setValue("/users/{userId}/orders").setType(MatchType.TEMPLATE)).
+            addMonitoredHttpServerUri(new Match().setValue("/static").setAlias("static").setType(MatchType.PREFIX))
+    ));
+  }
+
   public void setupMonitoredRoutes() {
     Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
       new DropwizardMetricsOptions().
@@ -106,6 +134,35 @@ public class MetricsExamples {
     ));
   }
 
+  public void setupHdrTimers() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            setHdrTimersEnabled(true).
+            setHdrTimersPrecision(3)
+    ));
+  }
+
+  public void setupShardedMetrics() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            setShardedMetricsEnabled(true)
+    ));
+  }
+
+  public void setupCardinalityLimits() {
+    Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(
+        new DropwizardMetricsOptions().
+            setEnabled(true).
+            setMaxHttpMatches(100).
+            setMaxRemoteHosts(1000).
+            setMaxIdleRemoteHosts(64).
+            setMaxEventBusHandlers(100).
+            setMaxEventBusAddresses(100)
+    ));
+  }
+
   public void naming1(Vertx vertx, MetricsService metricsService) {
     JsonObject metrics = metricsService.getMetricsSnapshot(vertx);
     metrics.getJsonObject("vertx.eventbus.handlers");
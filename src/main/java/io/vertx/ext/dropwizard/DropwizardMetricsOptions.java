@@ -44,6 +44,11 @@ public class DropwizardMetricsOptions extends MetricsOptions {
    */
   public static final List<Match> DEFAULT_MONITORED_HANDLERS = null;
 
+  /**
+   * The default monitored event bus addresses : {@code null}
+   */
+  public static final List<Match> DEFAULT_MONITORED_ADDRESSES = null;
+
   /**
    * The default monitored http server uris : {@code null}
    */
@@ -64,16 +69,95 @@ public class DropwizardMetricsOptions extends MetricsOptions {
    */
   public static final List<Match> DEFAULT_MONITORED_HTTP_CLIENT_ENDPOINTS = null;
 
+  /**
+   * The default size of the match cache = {@code 0}, i.e disabled
+   */
+  public static final int DEFAULT_MATCH_CACHE_SIZE = 0;
+
+  /**
+   * The default value of HDR timers enabled = {@code false}
+   */
+  public static final boolean DEFAULT_HDR_TIMERS_ENABLED = false;
+
+  /**
+   * The default number of significant digits of HDR timers = {@code 2}
+   */
+  public static final int DEFAULT_HDR_TIMERS_PRECISION = 2;
+
+  /**
+   * The default value of sharded metrics enabled = {@code false}
+   */
+  public static final boolean DEFAULT_SHARDED_METRICS_ENABLED = false;
+
+  /**
+   * The default maximum number of HTTP uri and route matches with their own metrics = {@code 0}, i.e unlimited
+   */
+  public static final int DEFAULT_MAX_HTTP_MATCHES = 0;
+
+  /**
+   * The default maximum number of remote hosts with their own connection metrics = {@code 0}, i.e unlimited
+   */
+  public static final int DEFAULT_MAX_REMOTE_HOSTS = 0;
+
+  /**
+   * The default maximum number of event bus handler names with their own metrics = {@code 0}, i.e unlimited
+   */
+  public static final int DEFAULT_MAX_EVENT_BUS_HANDLERS = 0;
+
+  /**
+   * The default maximum number of event bus addresses with their own metrics = {@code 0}, i.e unlimited
+   */
+  public static final int DEFAULT_MAX_EVENT_BUS_ADDRESSES = 0;
+
+  /**
+   * The default value of lean event bus metrics enabled = {@code false}
+   */
+  public static final boolean DEFAULT_LEAN_EVENT_BUS_METRICS_ENABLED = false;
+
+  /**
+   * The default number of remote hosts reported by the traffic breakdown = {@code 0}, i.e disabled
+   */
+  public static final int DEFAULT_TOP_REMOTE_HOSTS = 0;
+
+  /**
+   * The default value of high rate datagram metrics enabled = {@code false}
+   */
+  public static final boolean DEFAULT_HIGH_RATE_DATAGRAM_METRICS_ENABLED = false;
+
+  /**
+   * The default value of reply metrics enabled = {@code false}
+   */
+  public static final boolean DEFAULT_REPLY_METRICS_ENABLED = false;
+
+  /**
+   * The default maximum number of idle remote hosts keeping their connection metrics = {@code 0}, i.e removed when their last connection closes
+   */
+  public static final int DEFAULT_MAX_IDLE_REMOTE_HOSTS = 0;
+
   private String registryName;
   private boolean jmxEnabled;
   private String jmxDomain;
   private List<Match> monitoredEventBusHandlers;
+  private List<Match> monitoredEventBusAddresses;
   private List<Match> monitoredHttpServerUris;
   private List<Match> monitoredHttpServerRoutes;
   private List<Match> monitoredHttpClientUris;
   private List<Match> monitoredHttpClientEndpoints;
   private String configPath;
   private String baseName;
+  private int matchCacheSize;
+  private boolean hdrTimersEnabled;
+  private int hdrTimersPrecision;
+  private boolean shardedMetricsEnabled;
+  private int maxHttpMatches;
+  private int maxRemoteHosts;
+  private int maxEventBusHandlers;
+  private int maxEventBusAddresses;
+  private boolean leanEventBusMetricsEnabled;
+  private int topRemoteHosts;
+  private boolean highRateDatagramMetricsEnabled;
+  private boolean replyMetricsEnabled;
+  private int maxIdleRemoteHosts;
 
   /**
    * Default constructor
@@ -85,10 +169,24 @@ public class DropwizardMetricsOptions extends MetricsOptions {
   private void init() {
     jmxEnabled = DEFAULT_JMX_ENABLED;
     monitoredEventBusHandlers = DEFAULT_MONITORED_HANDLERS;
+    monitoredEventBusAddresses = DEFAULT_MONITORED_ADDRESSES;
     monitoredHttpServerUris = DEFAULT_MONITORED_HTTP_SERVER_URIS;
     monitoredHttpServerRoutes = DEFAULT_MONITORED_HTTP_SERVER_ROUTES;
     monitoredHttpClientUris = DEFAULT_MONITORED_HTTP_CLIENT_URIS;
     monitoredHttpClientEndpoints = DEFAULT_MONITORED_HTTP_CLIENT_ENDPOINTS;
+    matchCacheSize = DEFAULT_MATCH_CACHE_SIZE;
+    hdrTimersEnabled = DEFAULT_HDR_TIMERS_ENABLED;
+    hdrTimersPrecision = DEFAULT_HDR_TIMERS_PRECISION;
+    shardedMetricsEnabled = DEFAULT_SHARDED_METRICS_ENABLED;
+    maxHttpMatches = DEFAULT_MAX_HTTP_MATCHES;
+    maxRemoteHosts = DEFAULT_MAX_REMOTE_HOSTS;
+    maxEventBusHandlers = DEFAULT_MAX_EVENT_BUS_HANDLERS;
+    maxEventBusAddresses = DEFAULT_MAX_EVENT_BUS_ADDRESSES;
+    leanEventBusMetricsEnabled = DEFAULT_LEAN_EVENT_BUS_METRICS_ENABLED;
+    topRemoteHosts = DEFAULT_TOP_REMOTE_HOSTS;
+    highRateDatagramMetricsEnabled = DEFAULT_HIGH_RATE_DATAGRAM_METRICS_ENABLED;
+    replyMetricsEnabled = DEFAULT_REPLY_METRICS_ENABLED;
+    maxIdleRemoteHosts = DEFAULT_MAX_IDLE_REMOTE_HOSTS;
   }
 
   /**
@@ -114,10 +212,24 @@ public class DropwizardMetricsOptions extends MetricsOptions {
     jmxDomain = other.getJmxDomain();
     configPath = other.getConfigPath();
     monitoredEventBusHandlers = other.monitoredEventBusHandlers == null ? null : new ArrayList<>(other.monitoredEventBusHandlers);
+    monitoredEventBusAddresses = other.monitoredEventBusAddresses == null ? null : new ArrayList<>(other.monitoredEventBusAddresses);
     monitoredHttpServerUris = other.monitoredHttpServerUris == null ? null : new ArrayList<>(other.monitoredHttpServerUris);
     monitoredHttpServerRoutes = other.monitoredHttpServerRoutes == null ? null : new ArrayList<>(other.monitoredHttpServerRoutes);
     monitoredHttpClientUris = other.monitoredHttpClientUris == null ? null : new ArrayList<>(other.monitoredHttpClientUris);
     monitoredHttpClientEndpoints = other.monitoredHttpClientEndpoints == null ? null : new ArrayList<>(other.monitoredHttpClientEndpoints);
+    matchCacheSize = other.getMatchCacheSize();
+    hdrTimersEnabled = other.isHdrTimersEnabled();
+    hdrTimersPrecision = other.getHdrTimersPrecision();
+    shardedMetricsEnabled = other.isShardedMetricsEnabled();
+    maxHttpMatches = other.getMaxHttpMatches();
+    maxRemoteHosts = other.getMaxRemoteHosts();
+    maxEventBusHandlers = other.getMaxEventBusHandlers();
+    maxEventBusAddresses = other.getMaxEventBusAddresses();
+    leanEventBusMetricsEnabled = other.isLeanEventBusMetricsEnabled();
+    topRemoteHosts = other.getTopRemoteHosts();
+    highRateDatagramMetricsEnabled = other.isHighRateDatagramMetricsEnabled();
+    replyMetricsEnabled = other.isReplyMetricsEnabled();
+    maxIdleRemoteHosts = other.getMaxIdleRemoteHosts();
   }
 
   /**
@@ -227,6 +339,28 @@ public class DropwizardMetricsOptions extends MetricsOptions {
     return this;
   }
 
+  /**
+   * @return the list of monitored event bus addresses
+   */
+  public List<Match> getMonitoredEventBusAddresses() {
+    return monitoredEventBusAddresses;
+  }
+
+  /**
+   * Add a monitored event bus address, the messages sent, published and received on the matching addresses
+   * are reported by their own metrics.
+   *
+   * @param match the event bus address match
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions addMonitoredEventBusAddress(Match match) {
+    if (monitoredEventBusAddresses == null) {
+      monitoredEventBusAddresses = new ArrayList<>();
+    }
+    monitoredEventBusAddresses.add(match);
+    return this;
+  }
+
   /**
    * @return the list of monitored http server uris
    */
@@ -353,6 +487,266 @@ public class DropwizardMetricsOptions extends MetricsOptions {
     return baseName;
   }
 
+  /**
+   * @return the maximum number of match results cached
+   */
+  public int getMatchCacheSize() {
+    return matchCacheSize;
+  }
+
+  /**
+   * Set the maximum number of match results cached, when greater than zero the results of the monitored
+   * event bus handlers, http server uris and routes, http client uris and endpoints matches are cached, including
+   * the values that do not match, in a bounded cache shared by all the matchers.
+   *
+   * @param matchCacheSize the match cache size
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMatchCacheSize(int matchCacheSize) {
+    this.matchCacheSize = matchCacheSize;
+    return this;
+  }
+
+  /**
+   * @return true when timers record their durations in an HDR histogram
+   */
+  public boolean isHdrTimersEnabled() {
+    return hdrTimersEnabled;
+  }
+
+  /**
+   * Set whether timers record their durations in a lock-free HDR histogram instead of the default exponentially
+   * decaying reservoir.
+   *
+   * @param hdrTimersEnabled true when timers use an HDR histogram
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setHdrTimersEnabled(boolean hdrTimersEnabled) {
+    this.hdrTimersEnabled = hdrTimersEnabled;
+    return this;
+  }
+
+  /**
+   * @return the number of significant digits of HDR timers
+   */
+  public int getHdrTimersPrecision() {
+    return hdrTimersPrecision;
+  }
+
+  /**
+   * Set the number of significant digits of the durations recorded by HDR timers, between 1 and 3.
+   *
+   * @param hdrTimersPrecision the number of significant digits
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setHdrTimersPrecision(int hdrTimersPrecision) {
+    if (hdrTimersPrecision < 1 || hdrTimersPrecision > 3) {
+      throw new IllegalArgumentException("HDR timers precision must be between 1 and 3");
+    }
+    this.hdrTimersPrecision = hdrTimersPrecision;
+    return this;
+  }
+
+  /**
+   * @return true when histograms and timers record their values in per event-loop shards
+   */
+  public boolean isShardedMetricsEnabled() {
+    return shardedMetricsEnabled;
+  }
+
+  /**
+   * Set whether histograms and timers record their values in per event-loop shards merged when the metrics are read,
+   * so event-loop threads do not contend on shared reservoirs. The other threads share a single shard. Shards are
+   * HDR histograms, sharded timers are HDR timers.
+   *
+   * @param shardedMetricsEnabled true when histograms and timers are sharded
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setShardedMetricsEnabled(boolean shardedMetricsEnabled) {
+    this.shardedMetricsEnabled = shardedMetricsEnabled;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of HTTP uri and route matches with their own metrics
+   */
+  public int getMaxHttpMatches() {
+    return maxHttpMatches;
+  }
+
+  /**
+   * Set the maximum number of HTTP uri and route matches with their own metrics for each HTTP server or client,
+   * the requests of the matches beyond this limit are reported under the {@code __overflow__} name. {@code 0}
+   * means unlimited.
+   *
+   * @param maxHttpMatches the maximum number of matches
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMaxHttpMatches(int maxHttpMatches) {
+    this.maxHttpMatches = maxHttpMatches;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of remote hosts with their own connection metrics
+   */
+  public int getMaxRemoteHosts() {
+    return maxRemoteHosts;
+  }
+
+  /**
+   * Set the maximum number of remote hosts with their own connection metrics for each TCP or QUIC server or
+   * client, the connections of the hosts beyond this limit are reported under the {@code __overflow__} name.
+   * {@code 0} means unlimited.
+   *
+   * @param maxRemoteHosts the maximum number of remote hosts
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMaxRemoteHosts(int maxRemoteHosts) {
+    this.maxRemoteHosts = maxRemoteHosts;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of event bus handler names with their own metrics
+   */
+  public int getMaxEventBusHandlers() {
+    return maxEventBusHandlers;
+  }
+
+  /**
+   * Set the maximum number of monitored event bus handler names with their own metrics, the handlers beyond this
+   * limit are reported under the {@code __overflow__} name. {@code 0} means unlimited.
+   *
+   * @param maxEventBusHandlers the maximum number of handler names
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMaxEventBusHandlers(int maxEventBusHandlers) {
+    this.maxEventBusHandlers = maxEventBusHandlers;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of event bus addresses with their own metrics
+   */
+  public int getMaxEventBusAddresses() {
+    return maxEventBusAddresses;
+  }
+
+  /**
+   * Set the maximum number of monitored event bus addresses with their own metrics, the addresses beyond this
+   * limit are reported under the {@code __overflow__} name. {@code 0} means unlimited.
+   *
+   * @param maxEventBusAddresses the maximum number of addresses
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMaxEventBusAddresses(int maxEventBusAddresses) {
+    this.maxEventBusAddresses = maxEventBusAddresses;
+    return this;
+  }
+
+  /**
+   * @return whether the event bus totals are computed from the local and remote metrics when they are read
+   */
+  public boolean isLeanEventBusMetricsEnabled() {
+    return leanEventBusMetricsEnabled;
+  }
+
+  /**
+   * Set whether the event bus totals, e.g {@code messages.received}, are computed from the local and remote metrics
+   * when they are read instead of being updated with each message. This halves the cost of the event bus metrics
+   * and reports the same metrics.
+   *
+   * @param leanEventBusMetricsEnabled true to compute the totals when they are read
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setLeanEventBusMetricsEnabled(boolean leanEventBusMetricsEnabled) {
+    this.leanEventBusMetricsEnabled = leanEventBusMetricsEnabled;
+    return this;
+  }
+
+  /**
+   * @return the number of remote hosts reported by the traffic breakdown
+   */
+  public int getTopRemoteHosts() {
+    return topRemoteHosts;
+  }
+
+  /**
+   * Set the number of remote hosts exchanging the most bytes reported by the {@code top-remote-hosts} gauge of
+   * each TCP or QUIC server or client over the last one to two minutes. The hosts are estimated with a sketch of a
+   * fixed size, whatever the number of remote hosts. {@code 0} disables the breakdown.
+   *
+   * @param topRemoteHosts the number of remote hosts
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setTopRemoteHosts(int topRemoteHosts) {
+    this.topRemoteHosts = topRemoteHosts;
+    return this;
+  }
+
+  /**
+   * @return whether the datagram socket metrics are recorded for high packet rates
+   */
+  public boolean isHighRateDatagramMetricsEnabled() {
+    return highRateDatagramMetricsEnabled;
+  }
+
+  /**
+   * Set whether the datagram socket metrics are recorded for high packet rates: the packet sizes are counted in
+   * fixed buckets instead of a sampling reservoir updated under a lock, and the packets and bytes are also reported
+   * by throughput meters.
+   *
+   * @param highRateDatagramMetricsEnabled true to record the datagram socket metrics for high packet rates
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setHighRateDatagramMetricsEnabled(boolean highRateDatagramMetricsEnabled) {
+    this.highRateDatagramMetricsEnabled = highRateDatagramMetricsEnabled;
+    return this;
+  }
+
+  /**
+   * @return whether the event bus reports the round trip of the requests and the lifetime of their reply addresses
+   */
+  public boolean isReplyMetricsEnabled() {
+    return replyMetricsEnabled;
+  }
+
+  /**
+   * Set whether the event bus reports the {@code messages.reply-round-trip} and {@code messages.reply-address-lifetime}
+   * timers. These timers cost an allocation per request, the requests are otherwise only measured when monitored
+   * addresses are configured, to report their {@code messages.reply-round-trip.<address>} timers.
+   *
+   * @param replyMetricsEnabled true to report the round trip of the requests
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setReplyMetricsEnabled(boolean replyMetricsEnabled) {
+    this.replyMetricsEnabled = replyMetricsEnabled;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of remote hosts without open connections keeping their connection metrics
+   */
+  public int getMaxIdleRemoteHosts() {
+    return maxIdleRemoteHosts;
+  }
+
+  /**
+   * Set the maximum number of remote hosts without open connections keeping their {@code open-connections.<remote-host>}
+   * counter for each TCP or QUIC server or client, so hosts reconnecting in a loop do not register and remove their
+   * counter on each connection. The idle hosts are removed once there are more than this number of them, or when
+   * a new host needs the room of the {@link #setMaxRemoteHosts(int) remote hosts limit}. {@code 0} means the counter
+   * of a host is removed when its last connection closes.
+   *
+   * @param maxIdleRemoteHosts the maximum number of idle remote hosts
+   * @return a reference to this, so the API can be used fluently
+   */
+  public DropwizardMetricsOptions setMaxIdleRemoteHosts(int maxIdleRemoteHosts) {
+    this.maxIdleRemoteHosts = maxIdleRemoteHosts;
+    return this;
+  }
+
   /**
    * @return a JSON representation of these options
    */
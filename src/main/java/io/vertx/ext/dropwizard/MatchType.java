@@ -12,6 +12,18 @@ public enum MatchType {
 
   EQUALS,
 
-  REGEX
+  REGEX,
+
+  /**
+   * Matches a value starting with the path segments of the match value, e.g {@code /api} matches {@code /api}
+   * and {@code /api/users} but not {@code /apis}. When several prefixes match, the longest one wins.
+   */
+  PREFIX,
+
+  /**
+   * Matches a value with the path segments of the match value, a segment like {@code {id}} matches any
+   * non empty segment, e.g {@code /users/{id}/orders} matches {@code /users/1/orders}.
+   */
+  TEMPLATE
 
 }
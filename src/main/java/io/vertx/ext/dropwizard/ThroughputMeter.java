@@ -18,8 +18,8 @@ public class ThroughputMeter extends Meter {
   }
 
   @Override
-  public void mark() {
-    super.mark();
-    instantThroughput.mark();
+  public void mark(long n) {
+    super.mark(n);
+    instantThroughput.mark(n);
   }
 }
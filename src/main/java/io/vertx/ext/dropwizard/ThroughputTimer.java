@@ -1,6 +1,7 @@
 package io.vertx.ext.dropwizard;
 
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.Timer;
 import io.vertx.ext.dropwizard.impl.InstantThroughput;
 
@@ -16,6 +17,16 @@ public class ThroughputTimer extends Timer {
 
   private final InstantThroughput instantThroughput = new InstantThroughput();
 
+  public ThroughputTimer() {
+  }
+
+  /**
+   * Create a throughput timer recording its durations in the given {@code reservoir}.
+   */
+  public ThroughputTimer(Reservoir reservoir) {
+    super(reservoir);
+  }
+
   public Long getValue() {
     return instantThroughput.count();
   }
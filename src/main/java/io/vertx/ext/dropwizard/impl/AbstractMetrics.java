@@ -21,17 +21,21 @@ import com.codahale.metrics.ExponentiallyDecayingReservoir;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.Timer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.metrics.Measured;
 import io.vertx.core.spi.metrics.Metrics;
 import io.vertx.core.spi.metrics.MetricsProvider;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import io.vertx.ext.dropwizard.ThroughputMeter;
 import io.vertx.ext.dropwizard.ThroughputTimer;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -52,10 +56,18 @@ public abstract class AbstractMetrics implements Metrics {
 
   protected final MetricRegistry registry;
   protected final String baseName;
+  protected final DropwizardMetricsOptions options;
+  // the shards of the vertx instance
+  final Shards shards;
+  // the index retained by the vertx metrics, or a detached index for the metrics created after they closed
+  private final RegistryIndex index;
 
-  AbstractMetrics(MetricRegistry registry, String baseName) {
+  AbstractMetrics(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards) {
     this.registry = registry;
     this.baseName = baseName;
+    this.options = options;
+    this.shards = shards;
+    this.index = RegistryHelper.index(registry);
   }
 
   /**
@@ -113,16 +125,92 @@ public abstract class AbstractMetrics implements Metrics {
     try {
       return registry.counter(nameOf(names));
     } catch (Exception e) {
+      checkNotSum(nameOf(names));
       return new Counter();
     }
   }
 
+  /**
+   * Registers a gauge of the sum of the {@code parts}, reported as a counter by the metrics service.
+   *
+   * @throws IllegalStateException when the name is used by a counter updated directly
+   */
+  protected void sumCounter(Counter[] parts, String... names) {
+    Metric metric = getOrAdd(nameOf(names), () -> new SumCounter(parts));
+    if (metric instanceof Counter) {
+      throw sumConflict(nameOf(names));
+    }
+  }
+
+  /**
+   * Registers a gauge of the sum of the {@code parts}, reported as a throughput meter by the metrics service.
+   *
+   * @throws IllegalStateException when the name is used by a throughput meter updated directly
+   */
+  protected void sumThroughputMeter(ThroughputMeter[] parts, String... names) {
+    Metric metric = getOrAdd(nameOf(names), () -> new SumThroughputMeter(parts));
+    if (metric instanceof ThroughputMeter) {
+      throw sumConflict(nameOf(names));
+    }
+  }
+
+  // the metric registered under the name, registering the sum when the name is not used
+  private Metric getOrAdd(String name, Supplier<Metric> sum) {
+    try {
+      return RegistryHelper.getOrAdd(registry, index, name, metric -> metric == null ? sum.get() : metric);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  // a metric updated directly cannot be registered under the name of a sum
+  private void checkNotSum(String name) {
+    Metric metric = registry.getMetrics().get(name);
+    if (metric instanceof SumCounter || metric instanceof SumThroughputMeter) {
+      throw sumConflict(name);
+    }
+  }
+
+  /**
+   * A sum cannot be updated and a metric updated directly is not a sum, e.g lean and non lean event bus metrics
+   * cannot share a registry.
+   */
+  private static IllegalStateException sumConflict(String name) {
+    return new IllegalStateException("Metric " + name + " is registered both as a sum of other metrics and as a " +
+      "metric updated directly, the metrics sharing the registry must be configured the same way");
+  }
+
   protected Histogram histogram(String... names) {
     try {
-      return registry.histogram(nameOf(names));
+      return registry.histogram(nameOf(names), this::newHistogram);
+    } catch (Exception e) {
+      return newHistogram();
+    }
+  }
+
+  private Histogram newHistogram() {
+    if (options.isShardedMetricsEnabled()) {
+      return new Histogram(new ShardedReservoir(shards, HdrReservoir::values));
+    }
+    return new Histogram(new ExponentiallyDecayingReservoir());
+  }
+
+  /**
+   * @return a histogram of sizes in bytes, counted in fixed buckets so updating it never locks nor allocates
+   */
+  protected Histogram sizeHistogram(String... names) {
+    try {
+      return registry.histogram(nameOf(names), this::newSizeHistogram);
     } catch (Exception e) {
-      return new Histogram(new ExponentiallyDecayingReservoir());
+      return newSizeHistogram();
+    }
+  }
+
+  private Histogram newSizeHistogram() {
+    if (options.isShardedMetricsEnabled()) {
+      return new Histogram(new ShardedReservoir(shards, HdrReservoir::sizes));
     }
+    return new Histogram(HdrReservoir.sizes());
   }
 
   protected Meter meter(String... names) {
@@ -135,26 +223,58 @@ public abstract class AbstractMetrics implements Metrics {
 
   protected Timer timer(String... names) {
     try {
-      return registry.timer(nameOf(names));
+      return registry.timer(nameOf(names), this::newTimer);
     } catch (Exception e) {
-      return new Timer();
+      return newTimer();
     }
   }
 
+  private Reservoir newTimerReservoir() {
+    int precision = options.getHdrTimersPrecision();
+    if (options.isShardedMetricsEnabled()) {
+      // sampling reservoirs cannot be merged, sharded timers are always hdr timers
+      return new ShardedReservoir(shards, () -> HdrReservoir.durations(precision));
+    }
+    if (options.isHdrTimersEnabled()) {
+      return HdrReservoir.durations(precision);
+    }
+    return new ExponentiallyDecayingReservoir();
+  }
+
+  Timer newTimer() {
+    return new Timer(newTimerReservoir());
+  }
+
+  private ThroughputTimer newThroughputTimer() {
+    return new ThroughputTimer(newTimerReservoir());
+  }
+
   protected ThroughputMeter throughputMeter(String... names) {
     try {
-      return RegistryHelper.throughputMeter(registry, nameOf(names));
+      return RegistryHelper.throughputMeter(registry, index, nameOf(names));
     } catch (Exception e) {
+      checkNotSum(nameOf(names));
       return new ThroughputMeter();
     }
   }
 
   protected ThroughputTimer throughputTimer(String... names) {
     try {
-      return RegistryHelper.throughputTimer(registry, nameOf(names));
+      return RegistryHelper.throughputTimer(registry, index, nameOf(names), this::newThroughputTimer);
     } catch (Exception e) {
-      return new ThroughputTimer();
+      return newThroughputTimer();
+    }
+  }
+
+  /**
+   * @return a limiter of the names of the {@code family} metrics reporting the names it drops in a
+   * {@code <family>.dropped-names} counter, or {@code null} when the {@code limit} is not positive
+   */
+  protected CardinalityLimiter cardinalityLimiter(int limit, String family) {
+    if (limit <= 0) {
+      return null;
     }
+    return new CardinalityLimiter(limit, counter(family, "dropped-names"));
   }
 
   protected void remove(String... names) {
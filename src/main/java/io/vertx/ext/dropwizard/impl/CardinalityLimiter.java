@@ -0,0 +1,86 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Counter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of names of a family of metrics created on the fly, e.g one counter per remote host. Once
+ * the limit is reached, new names are folded into the {@link #OVERFLOW} name and the distinct names folded are
+ * counted in the {@code dropped} counter.
+ * <p>
+ * The folded names are remembered, up to {@link #MAX_DROPPED} names, so folding a name again is a lookup and is
+ * not counted again. They are forgotten when a name is released, since they may then be admitted.
+ */
+class CardinalityLimiter {
+
+  static final String OVERFLOW = "__overflow__";
+
+  // the folded names remembered, the names folded beyond are counted each time they are folded
+  static final int MAX_DROPPED = 4096;
+
+  private final int limit;
+  private final Counter dropped;
+  private final Set<String> names = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger size = new AtomicInteger();
+  private final Set<String> droppedNames = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger droppedSize = new AtomicInteger();
+
+  CardinalityLimiter(int limit, Counter dropped) {
+    this.limit = limit;
+    this.dropped = dropped;
+  }
+
+  /**
+   * Admit a name in the family.
+   *
+   * @return the {@code name} when the name is known or below the limit, otherwise {@link #OVERFLOW}
+   */
+  String admit(String name) {
+    if (names.contains(name)) {
+      return name;
+    }
+    if (droppedNames.contains(name)) {
+      return OVERFLOW;
+    }
+    while (true) {
+      int current = size.get();
+      if (current >= limit) {
+        drop(name);
+        return OVERFLOW;
+      }
+      if (size.compareAndSet(current, current + 1)) {
+        break;
+      }
+    }
+    if (!names.add(name)) {
+      // concurrently admitted
+      size.decrementAndGet();
+    }
+    return name;
+  }
+
+  private void drop(String name) {
+    if (droppedSize.get() >= MAX_DROPPED) {
+      dropped.inc();
+    } else if (droppedNames.add(name)) {
+      droppedSize.incrementAndGet();
+      dropped.inc();
+    }
+  }
+
+  /**
+   * Release a name no longer used by the family, leaving room for a new name.
+   */
+  void release(String name) {
+    if (names.remove(name)) {
+      size.decrementAndGet();
+      if (droppedSize.get() > 0) {
+        droppedNames.clear();
+        droppedSize.set(0);
+      }
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package io.vertx.ext.dropwizard.impl;
+
+/**
+ * The metric of a connection, it accumulates the traffic of the connection until it is closed.
+ * <p>
+ * The connection events are reported by the event loop of the connection, the fields are not synchronized.
+ */
+class ConnectionMetric {
+
+  final long connected = System.nanoTime();
+  final RemoteHostConnections.Host host;
+  long bytesRead;
+  long bytesWritten;
+  int streams;
+
+  ConnectionMetric(RemoteHostConnections.Host host) {
+    this.host = host;
+  }
+
+  /**
+   * @return the average throughput of the connection in bytes per second, or {@code -1} when it cannot be computed
+   */
+  long throughput(long lifetime) {
+    if (lifetime <= 0) {
+      return -1;
+    }
+    return (long) ((bytesRead + bytesWritten) * 1_000_000_000D / lifetime);
+  }
+}
@@ -20,22 +20,44 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import io.vertx.core.spi.metrics.DatagramSocketMetrics;
 import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.dropwizard.ThroughputMeter;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
  */
 class DatagramSocketMetricsImpl extends AbstractMetrics implements DatagramSocketMetrics {
 
+  private final boolean highRate;
   private Counter socketsCounter;
   private Histogram bytesRead;
   private Histogram bytesWritten;
+  private ThroughputMeter packetsReadRate;
+  private ThroughputMeter bytesReadRate;
+  private final ThroughputMeter packetsWrittenRate;
+  private final ThroughputMeter bytesWrittenRate;
+  private final HeavyHitters topRemoteHosts;
   private Counter exceptions;
 
   DatagramSocketMetricsImpl(AbstractMetrics metrics, String baseName) {
-    super(metrics.registry(), baseName);
+    super(metrics.registry(), baseName, metrics.options, metrics.shards);
+    highRate = options.isHighRateDatagramMetricsEnabled();
     socketsCounter = counter("sockets");
     exceptions = counter("exceptions");
-    bytesWritten = histogram("bytes-written");
+    if (highRate) {
+      bytesWritten = sizeHistogram("bytes-written");
+      packetsWrittenRate = throughputMeter("packets-written-rate");
+      bytesWrittenRate = throughputMeter("bytes-written-rate");
+    } else {
+      bytesWritten = histogram("bytes-written");
+      packetsWrittenRate = null;
+      bytesWrittenRate = null;
+    }
+    if (options.getTopRemoteHosts() > 0) {
+      topRemoteHosts = new HeavyHitters(shards, options.getTopRemoteHosts());
+      gauge(topRemoteHosts, "top-remote-hosts");
+    } else {
+      topRemoteHosts = null;
+    }
     socketsCounter.inc();
   }
 
@@ -48,19 +70,39 @@ class DatagramSocketMetricsImpl extends AbstractMetrics implements DatagramSocke
   @Override
   public void listening(String localName, SocketAddress localAddress) {
     String serverName = localName + ':' + localAddress.port();
-    bytesRead = histogram(serverName, "bytes-read");
+    if (highRate) {
+      packetsReadRate = throughputMeter(serverName, "packets-read-rate");
+      bytesReadRate = throughputMeter(serverName, "bytes-read-rate");
+      bytesRead = sizeHistogram(serverName, "bytes-read");
+    } else {
+      bytesRead = histogram(serverName, "bytes-read");
+    }
   }
 
   @Override
   public void bytesRead(Void socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
     if (bytesRead != null) {
       bytesRead.update(numberOfBytes);
+      if (highRate) {
+        packetsReadRate.mark();
+        bytesReadRate.mark(numberOfBytes);
+      }
+    }
+    if (topRemoteHosts != null && remoteAddress != null) {
+      topRemoteHosts.add(remoteAddress.host(), numberOfBytes);
     }
   }
 
   @Override
   public void bytesWritten(Void socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
     bytesWritten.update(numberOfBytes);
+    if (highRate) {
+      packetsWrittenRate.mark();
+      bytesWrittenRate.mark(numberOfBytes);
+    }
+    if (topRemoteHosts != null && remoteAddress != null) {
+      topRemoteHosts.add(remoteAddress.host(), numberOfBytes);
+    }
   }
 
   @Override
@@ -19,7 +19,7 @@ public class DropwizardClientMetrics<Req, Resp> extends AbstractMetrics implemen
   final int count;
 
   public DropwizardClientMetrics(VertxMetricsImpl vertxMetrics, MetricRegistry registry, String baseName, int count) {
-    super(registry, baseName);
+    super(registry, baseName, vertxMetrics.options, vertxMetrics.shards);
     this.vertxMetrics = vertxMetrics;
     this.requests = timer("requests");
     this.ttfb = timer("ttfb");
@@ -28,7 +28,7 @@ public class DropwizardClientMetrics<Req, Resp> extends AbstractMetrics implemen
   }
 
   private DropwizardClientMetrics(DropwizardClientMetrics<Req, Resp> that, int count) {
-    super(that.registry, that.baseName);
+    super(that.registry, that.baseName, that.options, that.shards);
     this.vertxMetrics = that.vertxMetrics;
     this.requests = that.requests;
     this.ttfb = that.ttfb;
@@ -17,26 +17,45 @@
 package io.vertx.ext.dropwizard.impl;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.spi.metrics.EventBusMetrics;
 import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import io.vertx.ext.dropwizard.ThroughputMeter;
 
+import java.util.EnumMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
  */
 class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<EventBusMetricsImpl.HandlerMetric> {
 
+  // the schedule times kept for the queued messages of a handler, the default number of buffered messages fits
+  private static final int INITIAL_SCHEDULED = 16;
+  private static final int MAX_SCHEDULED = 1024;
+
+  // the number of addresses classified once, high rate services send to a few addresses
+  private static final int MAX_CLASSIFIED_ADDRESSES = 4096;
+
   private final HandlerMetric ignoredHandler = new HandlerMetric(null, false, true);
   private final HandlerMetric noMatchHandler = new HandlerMetric(null, true, false);
   private final ConcurrentMap<String, HandlerCounter> handlerTimers = new ConcurrentHashMap<>();
   private final Matcher handlerMatcher;
+  private final CardinalityLimiter handlerNames;
+  private final ConcurrentMap<String, AddressMetrics> addressMetrics = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Address> addresses = new ConcurrentHashMap<>();
+  private final Matcher addressMatcher;
+  private final CardinalityLimiter addressNames;
   private final Counter handlerCount;
+  // in lean mode the totals are registered as sums of the local and remote metrics and the total fields are null
+  private final boolean lean;
   private final Counter pending;
   private final Counter pendingLocal;
   private final Counter pendingRemote;
@@ -45,6 +64,8 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
   private final Counter discardedRemote;
   private final Meter bytesRead;
   private final Meter bytesWritten;
+  private final Histogram readSizes;
+  private final Histogram writtenSizes;
   private final ThroughputMeter receivedMessages;
   private final ThroughputMeter receivedLocalMessages;
   private final ThroughputMeter receivedRemoteMessages;
@@ -58,50 +79,146 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
   private final ThroughputMeter deliveredLocalMessages;
   private final ThroughputMeter deliveredRemoteMessages;
   private final Meter replyFailures;
+  // whether the global reply timers are reported, otherwise the requests are only measured for the monitored addresses
+  private final boolean replyMetrics;
+  private final Timer replyRoundTrip;
+  private final Timer replyAddressLifetime;
+  // the reply handler registered by a request of the current thread and not yet sent
+  private final ThreadLocal<ReplyMetric> pendingReply = new ThreadLocal<>();
+  private final EnumMap<ReplyFailure, Meter> replyFailureMeters = new EnumMap<>(ReplyFailure.class);
 
-  EventBusMetricsImpl(AbstractMetrics metrics, String baseName, DropwizardMetricsOptions options) {
-    super(metrics.registry(), baseName);
+  EventBusMetricsImpl(AbstractMetrics metrics, String baseName, DropwizardMetricsOptions options, MatchCache matchCache) {
+    super(metrics.registry(), baseName, options, metrics.shards);
 
     handlerCount = counter("handlers");
-    pending = counter("messages", "pending");
+    lean = options.isLeanEventBusMetricsEnabled();
     pendingLocal = counter("messages", "pending-local");
     pendingRemote = counter("messages", "pending-remote");
-    discarded = counter("messages", "discarded");
     discardedLocal = counter("messages", "discarded-local");
     discardedRemote = counter("messages", "discarded-remote");
-    receivedMessages = throughputMeter("messages", "received");
     receivedLocalMessages = throughputMeter("messages", "received-local");
     receivedRemoteMessages = throughputMeter("messages", "received-remote");
-    deliveredMessages = throughputMeter("messages", "delivered");
     deliveredLocalMessages = throughputMeter("messages", "delivered-local");
     deliveredRemoteMessages = throughputMeter("messages", "delivered-remote");
-    sentMessages = throughputMeter("messages", "sent");
     sentLocalMessages = throughputMeter("messages", "sent-local");
     sentRemoteMessages = throughputMeter("messages", "sent-remote");
-    publishedMessages = throughputMeter("messages", "published");
     publishedLocalMessages = throughputMeter("messages", "published-local");
     publishedRemoteMessages = throughputMeter("messages", "published-remote");
+    if (lean) {
+      sumCounter(new Counter[] { pendingLocal, pendingRemote }, "messages", "pending");
+      sumCounter(new Counter[] { discardedLocal, discardedRemote }, "messages", "discarded");
+      sumThroughputMeter(new ThroughputMeter[] { receivedLocalMessages, receivedRemoteMessages }, "messages", "received");
+      sumThroughputMeter(new ThroughputMeter[] { deliveredLocalMessages, deliveredRemoteMessages }, "messages", "delivered");
+      sumThroughputMeter(new ThroughputMeter[] { sentLocalMessages, sentRemoteMessages }, "messages", "sent");
+      sumThroughputMeter(new ThroughputMeter[] { publishedLocalMessages, publishedRemoteMessages }, "messages", "published");
+      pending = null;
+      discarded = null;
+      receivedMessages = null;
+      deliveredMessages = null;
+      sentMessages = null;
+      publishedMessages = null;
+    } else {
+      pending = counter("messages", "pending");
+      discarded = counter("messages", "discarded");
+      receivedMessages = throughputMeter("messages", "received");
+      deliveredMessages = throughputMeter("messages", "delivered");
+      sentMessages = throughputMeter("messages", "sent");
+      publishedMessages = throughputMeter("messages", "published");
+    }
     replyFailures = meter("messages", "reply-failures");
+    replyMetrics = options.isReplyMetricsEnabled();
+    replyRoundTrip = replyMetrics ? timer("messages", "reply-round-trip") : null;
+    replyAddressLifetime = replyMetrics ? timer("messages", "reply-address-lifetime") : null;
+    for (ReplyFailure failure : ReplyFailure.values()) {
+      replyFailureMeters.put(failure, meter("messages", "reply-failures", failure.name()));
+    }
     bytesRead = meter("messages", "bytes-read");
     bytesWritten = meter("messages", "bytes-written");
-    handlerMatcher = options.getMonitoredEventBusHandlers() == null ? null : new Matcher(options.getMonitoredEventBusHandlers());
+    readSizes = sizeHistogram("messages", "read-size");
+    writtenSizes = sizeHistogram("messages", "written-size");
+    handlerMatcher = options.getMonitoredEventBusHandlers() == null ? null : new Matcher(options.getMonitoredEventBusHandlers(), matchCache);
+    handlerNames = cardinalityLimiter(options.getMaxEventBusHandlers(), "handlers");
+    addressMatcher = options.getMonitoredEventBusAddresses() == null ? null : new Matcher(options.getMonitoredEventBusAddresses(), matchCache);
+    addressNames = cardinalityLimiter(options.getMaxEventBusAddresses(), "addresses");
   }
 
   private static boolean isInternal(String address) {
     return address.startsWith("__vertx.");
   }
 
+  private static boolean isReply(String address) {
+    return address.startsWith("__vertx.reply.");
+  }
+
+  /**
+   * Classify an {@code address} with a single lookup once it has been classified before. Reply addresses are
+   * used once, they are not cached.
+   */
+  private Address classify(String address) {
+    if (addressMatcher == null) {
+      return isInternal(address) ? Address.INTERNAL : Address.UNMONITORED;
+    }
+    Address classified = addresses.get(address);
+    if (classified == null) {
+      if (isInternal(address)) {
+        classified = Address.INTERNAL;
+        if (isReply(address)) {
+          return classified;
+        }
+      } else {
+        AddressMetrics metrics = addressMetrics(address);
+        classified = metrics != null ? new Address(metrics) : Address.UNMONITORED;
+      }
+      if (addresses.size() < MAX_CLASSIFIED_ADDRESSES) {
+        addresses.put(address, classified);
+      }
+    }
+    return classified;
+  }
+
+  /**
+   * @return the metrics of a monitored {@code address} or {@code null}
+   */
+  private AddressMetrics addressMetrics(String address) {
+    String match = addressMatcher.matches(address);
+    if (match == null) {
+      return null;
+    }
+    AddressMetrics metrics = addressMetrics.get(match);
+    if (metrics == null) {
+      if (addressNames != null) {
+        match = addressNames.admit(match);
+      }
+      metrics = addressMetrics.computeIfAbsent(match, AddressMetrics::new);
+    }
+    return metrics;
+  }
+
   @Override
   public void messageWritten(String address, int size) {
-    if (!isInternal(address)) {
+    Address classified = classify(address);
+    if (!classified.internal) {
       bytesWritten.mark(size);
+      writtenSizes.update(size);
+      AddressMetrics metrics = classified.metrics;
+      if (metrics != null) {
+        metrics.bytesWritten.mark(size);
+        metrics.writtenSizes.update(size);
+      }
     }
   }
 
   @Override
   public void messageRead(String address, int size) {
-    if (!isInternal(address)) {
+    Address classified = classify(address);
+    if (!classified.internal) {
       bytesRead.mark(size);
+      readSizes.update(size);
+      AddressMetrics metrics = classified.metrics;
+      if (metrics != null) {
+        metrics.bytesRead.mark(size);
+        metrics.readSizes.update(size);
+      }
     }
   }
 
@@ -112,6 +229,13 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
   @Override
   public HandlerMetric handlerRegistered(String address) {
     if (isInternal(address)) {
+      if (isReply(address) && (replyMetrics || addressMatcher != null)) {
+        ReplyMetric reply = new ReplyMetric(System.nanoTime());
+        if (addressMatcher != null) {
+          pendingReply.set(reply);
+        }
+        return reply;
+      }
       return ignoredHandler;
     }
     handlerCount.inc();
@@ -127,6 +251,9 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
   @Override
   public void handlerUnregistered(HandlerMetric handler) {
     if (handler.ignored) {
+      if (handler instanceof ReplyMetric) {
+        ((ReplyMetric) handler).unregistered();
+      }
       return;
     }
     handlerCount.dec();
@@ -140,17 +267,17 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
     if (handler.ignored) {
       return;
     }
-    pending.inc();
+    if (!lean) {
+      pending.inc();
+    }
     if (local) {
       pendingLocal.inc();
-      if (!handler.noMatch) {
-        handler.pendingLocalCount++;
-      }
     } else {
       pendingRemote.inc();
-      if (!handler.noMatch) {
-        handler.pendingRemoteCount++;
-      }
+    }
+    if (!handler.noMatch) {
+      (local ? handler.pendingLocal : handler.pendingRemote).inc();
+      handler.enqueue(System.nanoTime());
     }
   }
 
@@ -159,39 +286,44 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
     if (handler.ignored) {
       return;
     }
-    pending.dec();
-    discarded.inc();
+    if (!lean) {
+      pending.dec();
+      discarded.inc();
+    }
     if (local) {
       discardedLocal.inc();
       pendingLocal.dec();
-      if (!handler.noMatch) {
-        handler.pendingLocalCount--;
-      }
     } else {
       discardedRemote.inc();
       pendingRemote.dec();
-      if (!handler.noMatch) {
-        handler.pendingRemoteCount--;
-      }
+    }
+    if (!handler.noMatch) {
+      (local ? handler.pendingLocal : handler.pendingRemote).dec();
+      handler.discard();
     }
   }
 
   @Override
   public void messageDelivered(HandlerMetric handler, boolean local) {
     if (handler.ignored) {
+      if (handler instanceof ReplyMetric) {
+        ((ReplyMetric) handler).delivered();
+      }
       return;
     }
-    pending.dec();
+    if (!lean) {
+      pending.dec();
+    }
     if (local) {
       pendingLocal.dec();
     } else {
       pendingRemote.dec();
     }
     if (!handler.noMatch) {
-      if (local) {
-        handler.pendingLocalCount--;
-      } else {
-        handler.pendingRemoteCount--;
+      (local ? handler.pendingLocal : handler.pendingRemote).dec();
+      long scheduled = handler.dequeue();
+      if (scheduled != -1L) {
+        handler.queueWait.update(System.nanoTime() - scheduled, TimeUnit.NANOSECONDS);
       }
       handler.counter.inc();
     }
@@ -199,134 +331,361 @@ class EventBusMetricsImpl extends AbstractMetrics implements EventBusMetrics<Eve
 
   @Override
   public void messageSent(String address, boolean publish, boolean local, boolean remote) {
-    if (!isInternal(address)) {
+    // a request registers its reply handler right before being sent on the same thread
+    ReplyMetric reply = addressMatcher != null ? pendingReply.get() : null;
+    try {
+      sent(address, publish, local, reply);
+    } finally {
+      if (reply != null) {
+        // the handoff is consumed by this send whatever happens
+        pendingReply.remove();
+      }
+    }
+  }
+
+  private void sent(String address, boolean publish, boolean local, ReplyMetric reply) {
+    Address classified = classify(address);
+    if (!classified.internal) {
       if (publish) {
-        publishedMessages.mark();
+        if (!lean) {
+          publishedMessages.mark();
+        }
         if (local) {
           publishedLocalMessages.mark();
         } else {
           publishedRemoteMessages.mark();
         }
       } else {
-        sentMessages.mark();
+        if (!lean) {
+          sentMessages.mark();
+        }
         if (local) {
           sentLocalMessages.mark();
         } else {
           sentRemoteMessages.mark();
         }
       }
+      AddressMetrics metrics = classified.metrics;
+      if (metrics != null) {
+        (publish ? metrics.published : metrics.sent).mark();
+        if (reply != null && !publish && reply.pending) {
+          reply.target = metrics;
+        }
+      }
     }
   }
 
   @Override
   public void messageReceived(String address, boolean publish, boolean local, int handlers) {
-    if (!isInternal(address)) {
-      receivedMessages.mark();
+    Address classified = classify(address);
+    if (!classified.internal) {
+      if (!lean) {
+        receivedMessages.mark();
+      }
       if (local) {
         receivedLocalMessages.mark();
       } else {
         receivedRemoteMessages.mark();
       }
       if (handlers > 0) {
-        deliveredMessages.mark();
+        if (!lean) {
+          deliveredMessages.mark();
+        }
         if (local) {
           deliveredLocalMessages.mark();
         } else {
           deliveredRemoteMessages.mark();
         }
       }
+      AddressMetrics metrics = classified.metrics;
+      if (metrics != null) {
+        metrics.received.mark();
+      }
     }
   }
 
   public class HandlerMetric {
     final String address;
+    final HandlerCounter handlerCounter;
     final Counter counter;
-    final String name;
+    final Counter pendingLocal;
+    final Counter pendingRemote;
+    final Timer queueWait;
     final boolean noMatch;
     final boolean ignored;
-    long pendingLocalCount;
-    long pendingRemoteCount;
+
+    // the schedule times of the messages queued for this registration, in delivery order
+    private long[] scheduled;
+    private int head;
+    private int size;
+    // the messages queued once the schedule times were full, after the timed ones
+    private int untimed;
 
     public HandlerMetric(String address, boolean noMatch, boolean ignored) {
-      this.address = address;
       this.noMatch = noMatch;
       this.ignored = ignored;
       if (noMatch || ignored) {
+        this.address = address;
+        this.handlerCounter = null;
         this.counter = null;
-        this.name = null;
+        this.pendingLocal = null;
+        this.pendingRemote = null;
+        this.queueWait = null;
         return;
       }
-      this.name = nameOf("handlers", address);
-      while (true) {
-        HandlerCounter existing = handlerTimers.get(address);
-        if (existing != null) {
-          HandlerCounter next = existing.inc();
-          if (handlerTimers.replace(address, existing, next)) {
-            counter = next.counter;
-            break;
-          }
-        } else {
-          HandlerCounter created = new HandlerCounter();
-          if (handlerTimers.putIfAbsent(address, created) == null) {
-            registry.register(name, created.counter);
-            counter = created.counter;
-            break;
+      HandlerCounter handlerCounter = handlerTimers.get(address);
+      if (handlerCounter == null || !handlerCounter.retain()) {
+        // first registration of the address or last registration concurrently removed
+        handlerCounter = retain(address);
+        if (handlerCounter == null) {
+          address = CardinalityLimiter.OVERFLOW;
+          handlerCounter = retain(address);
+        }
+      }
+      this.address = address;
+      this.handlerCounter = handlerCounter;
+      this.counter = handlerCounter.counter;
+      this.pendingLocal = handlerCounter.pendingLocal;
+      this.pendingRemote = handlerCounter.pendingRemote;
+      this.queueWait = handlerCounter.queueWait;
+    }
+
+    synchronized void enqueue(long time) {
+      if (scheduled == null) {
+        scheduled = new long[INITIAL_SCHEDULED];
+      }
+      if (untimed == 0) {
+        if (size == scheduled.length && size < MAX_SCHEDULED) {
+          long[] grown = new long[size * 2];
+          for (int i = 0;i < size;i++) {
+            grown[i] = scheduled[(head + i) & (size - 1)];
           }
+          scheduled = grown;
+          head = 0;
+        }
+        if (size < scheduled.length) {
+          scheduled[(head + size++) & (scheduled.length - 1)] = time;
+          return;
         }
       }
+      untimed++;
+    }
+
+    /**
+     * @return the schedule time of the next message or {@code -1} when it is unknown
+     */
+    synchronized long dequeue() {
+      if (size > 0) {
+        long time = scheduled[head];
+        head = (head + 1) & (scheduled.length - 1);
+        size--;
+        return time;
+      }
+      if (untimed > 0) {
+        untimed--;
+      }
+      return -1L;
+    }
+
+    /**
+     * Forget the last queued message, consumers discard the messages exceeding their buffer.
+     */
+    synchronized void discard() {
+      if (untimed > 0) {
+        untimed--;
+      } else if (size > 0) {
+        size--;
+      }
+    }
+
+    /**
+     * Retain the counter of an {@code address}, the name is admitted by the limiter when the counter is created, so
+     * the last registration of the address cannot concurrently release the name.
+     *
+     * @return the counter or {@code null} when the address is beyond the limit
+     */
+    private HandlerCounter retain(String address) {
+      return handlerTimers.compute(address, (key, existing) -> {
+        if (existing != null && existing.retain()) {
+          return existing;
+        }
+        if (existing != null) {
+          // the name of the removed counter is still admitted
+          unregister(key);
+        } else if (handlerNames != null && !CardinalityLimiter.OVERFLOW.equals(key) && CardinalityLimiter.OVERFLOW.equals(handlerNames.admit(key))) {
+          return null;
+        }
+        HandlerCounter created = new HandlerCounter(newTimer());
+        register(key, created);
+        return created;
+      });
     }
 
     void remove() {
-      if (!noMatch && !ignored) {
-        while (true) {
-          HandlerCounter existing = handlerTimers.get(address);
-          HandlerCounter next = existing.dec();
-          if (next.refCount == 0) {
-            if (handlerTimers.remove(address, existing)) {
-              registry.remove(name);
-              break;
-            }
-          } else {
-            if (handlerTimers.replace(address, existing, next)) {
-              break;
-            }
+      if (!noMatch && !ignored && handlerCounter.release()) {
+        handlerTimers.computeIfPresent(address, (key, existing) -> {
+          if (existing != handlerCounter) {
+            // replaced by a new registration
+            return existing;
+          }
+          unregister(key);
+          if (handlerNames != null) {
+            handlerNames.release(key);
           }
+          return null;
+        });
+      }
+    }
+  }
+
+  /**
+   * The reply handler of a request, it measures the round trip of the request and the lifetime of the reply address.
+   */
+  private class ReplyMetric extends HandlerMetric {
+
+    final long registered;
+    // the metrics of the monitored address of the request
+    AddressMetrics target;
+    // until the reply is received or the reply address is unregistered
+    private boolean pending = true;
+
+    ReplyMetric(long registered) {
+      super(null, false, true);
+      this.registered = registered;
+    }
+
+    void delivered() {
+      if (pending) {
+        pending = false;
+        long roundTrip = System.nanoTime() - registered;
+        if (replyMetrics) {
+          replyRoundTrip.update(roundTrip, TimeUnit.NANOSECONDS);
         }
+        if (target != null) {
+          target.replyRoundTrip.update(roundTrip, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+
+    void unregistered() {
+      pending = false;
+      if (addressMatcher != null && pendingReply.get() == this) {
+        // never sent, a later send must not take it
+        pendingReply.remove();
+      }
+      if (replyMetrics) {
+        replyAddressLifetime.update(System.nanoTime() - registered, TimeUnit.NANOSECONDS);
       }
     }
   }
 
+  private void register(String address, HandlerCounter handlerCounter) {
+    registry.register(nameOf("handlers", address), handlerCounter.counter);
+    registry.register(nameOf("handlers-pending-local", address), handlerCounter.pendingLocal);
+    registry.register(nameOf("handlers-pending-remote", address), handlerCounter.pendingRemote);
+    registry.register(nameOf("handlers-queue-wait", address), handlerCounter.queueWait);
+  }
+
+  private void unregister(String address) {
+    remove("handlers", address);
+    remove("handlers-pending-local", address);
+    remove("handlers-pending-remote", address);
+    remove("handlers-queue-wait", address);
+  }
+
   @Override
   public void replyFailure(String address, ReplyFailure failure) {
     replyFailures.mark();
-    meter("messages", "reply-failures", failure.name()).mark();
+    replyFailureMeters.get(failure).mark();
+    AddressMetrics metrics = classify(address).metrics;
+    if (metrics != null) {
+      metrics.replyFailures.mark();
+    }
   }
 
-  static class HandlerCounter {
-    final int refCount;
-    final Counter counter;
+  /**
+   * The classification of an address: internal, monitored with its metrics, or not monitored.
+   */
+  private static class Address {
 
-    public HandlerCounter(int refCount, Counter counter) {
-      this.refCount = refCount;
-      this.counter = counter;
+    static final Address INTERNAL = new Address(true, null);
+    static final Address UNMONITORED = new Address(false, null);
+
+    final boolean internal;
+    final AddressMetrics metrics;
+
+    Address(AddressMetrics metrics) {
+      this(false, metrics);
     }
 
-    public HandlerCounter() {
-      this(1, new Counter());
+    private Address(boolean internal, AddressMetrics metrics) {
+      this.internal = internal;
+      this.metrics = metrics;
     }
+  }
+
+  /**
+   * The metrics of a monitored address, resolved once so messages never look up the registry.
+   */
+  private class AddressMetrics {
+    final Meter sent;
+    final Meter published;
+    final Meter received;
+    final Meter bytesRead;
+    final Meter bytesWritten;
+    final Histogram readSizes;
+    final Histogram writtenSizes;
+    final Meter replyFailures;
+    final Timer replyRoundTrip;
 
-    HandlerCounter inc() {
-      return new HandlerCounter(refCount + 1, counter);
+    AddressMetrics(String name) {
+      sent = meter("messages", "sent", name);
+      published = meter("messages", "published", name);
+      received = meter("messages", "received", name);
+      bytesRead = meter("messages", "bytes-read", name);
+      bytesWritten = meter("messages", "bytes-written", name);
+      readSizes = sizeHistogram("messages", "read-size", name);
+      writtenSizes = sizeHistogram("messages", "written-size", name);
+      replyFailures = meter("messages", "reply-failures", name);
+      replyRoundTrip = timer("messages", "reply-round-trip", name);
     }
+  }
+
+  /**
+   * The metrics shared by the registrations of an address. Once its last registration is removed, the reference
+   * count stays at zero: a new registration replaces it instead of retaining it.
+   */
+  static class HandlerCounter {
+    final AtomicInteger refCount = new AtomicInteger(1);
+    final Counter counter = new Counter();
+    final Counter pendingLocal = new Counter();
+    final Counter pendingRemote = new Counter();
+    final Timer queueWait;
 
-    HandlerCounter dec() {
-      return new HandlerCounter(refCount - 1, counter);
+    HandlerCounter(Timer queueWait) {
+      this.queueWait = queueWait;
+    }
+
+    /**
+     * @return {@code false} when the last registration was removed
+     */
+    boolean retain() {
+      while (true) {
+        int count = refCount.get();
+        if (count == 0) {
+          return false;
+        }
+        if (refCount.compareAndSet(count, count + 1)) {
+          return true;
+        }
+      }
     }
 
-    @Override
-    public boolean equals(Object obj) {
-      HandlerCounter that = (HandlerCounter) obj;
-      return refCount == that.refCount;
+    /**
+     * @return {@code true} when the last registration is removed
+     */
+    boolean release() {
+      return refCount.decrementAndGet() == 0;
     }
   }
 }
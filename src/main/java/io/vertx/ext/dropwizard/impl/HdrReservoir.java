@@ -0,0 +1,334 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Reservoir} counting values in the log-linear buckets of an HDR histogram instead of sampling them:
+ * recording a value never locks nor allocates, it increments a single slot of an array.
+ * <p>
+ * Values are recorded in two intervals, the current one and the previous one. Taking a snapshot merges both of them
+ * and, once a window has elapsed since the last rotation, discards the previous interval and starts a new current one.
+ * Snapshots therefore reflect the values recorded over the last one to two windows.
+ * <p>
+ * The {@code significantDigits} define the precision of the recorded values, e.g {@code 2} keeps values within 1%
+ * of the recorded value.
+ */
+class HdrReservoir implements Reservoir {
+
+  static final long LOWEST_DURATION = TimeUnit.MICROSECONDS.toNanos(1);
+  static final long HIGHEST_DURATION = TimeUnit.HOURS.toNanos(1);
+  static final long HIGHEST_SIZE = 1L << 40;
+
+  // the window of the default reservoir would be five minutes, favour recent values
+  private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+  // the size of the values returned by snapshots, the same as the default reservoir
+  private static final int SNAPSHOT_VALUES = 1028;
+
+  /**
+   * @return a reservoir for durations in nanoseconds, between one microsecond and one hour
+   */
+  static HdrReservoir durations(int significantDigits) {
+    return new HdrReservoir(LOWEST_DURATION, HIGHEST_DURATION, significantDigits);
+  }
+
+  /**
+   * @return a reservoir for any positive values, up to {@link #HIGHEST_SIZE} with two significant digits
+   */
+  static HdrReservoir values() {
+    return new HdrReservoir(1, HIGHEST_SIZE, 2);
+  }
+
+  /**
+   * @return a reservoir for sizes in bytes, up to one terabyte with a single significant digit
+   */
+  static HdrReservoir sizes() {
+    return new HdrReservoir(1, HIGHEST_SIZE, 1);
+  }
+
+  private final long highestTrackableValue;
+  private final int unitMagnitude;
+  private final int subBucketHalfCountMagnitude;
+  private final int subBucketHalfCount;
+  private final long subBucketMask;
+  private final int leadingZeroCountBase;
+  private final int length;
+
+  private volatile Interval current;
+  private Interval previous;
+  private long rotation;
+
+  HdrReservoir(long lowestDiscernibleValue, long highestTrackableValue, int significantDigits) {
+    if (lowestDiscernibleValue < 1) {
+      throw new IllegalArgumentException("Invalid lowest discernible value " + lowestDiscernibleValue);
+    }
+    if (highestTrackableValue < 2 * lowestDiscernibleValue) {
+      throw new IllegalArgumentException("Invalid highest trackable value " + highestTrackableValue);
+    }
+    if (significantDigits < 1 || significantDigits > 5) {
+      throw new IllegalArgumentException("Invalid number of significant digits " + significantDigits);
+    }
+    long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+    int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+    int subBucketCount = 1 << subBucketCountMagnitude;
+    this.highestTrackableValue = highestTrackableValue;
+    this.unitMagnitude = 63 - Long.numberOfLeadingZeros(lowestDiscernibleValue);
+    this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+    this.subBucketHalfCount = subBucketCount / 2;
+    this.subBucketMask = ((long) subBucketCount - 1) << unitMagnitude;
+    this.leadingZeroCountBase = 64 - unitMagnitude - subBucketCountMagnitude;
+    int bucketCount = 1;
+    long smallestUntrackableValue = ((long) subBucketCount) << unitMagnitude;
+    while (smallestUntrackableValue <= highestTrackableValue) {
+      smallestUntrackableValue <<= 1;
+      bucketCount++;
+    }
+    this.length = (bucketCount + 1) * subBucketHalfCount;
+    this.current = new Interval(length);
+    this.previous = new Interval(length);
+    this.rotation = System.nanoTime();
+  }
+
+  int index(long value) {
+    int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    int subBucketIndex = (int) (value >>> (bucketIndex + unitMagnitude));
+    return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+  }
+
+  /**
+   * @return the middle of the range of values counted at {@code index}
+   */
+  long valueAt(int index) {
+    int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+    int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+    if (bucketIndex < 0) {
+      subBucketIndex -= subBucketHalfCount;
+      bucketIndex = 0;
+    }
+    long lowest = ((long) subBucketIndex) << (bucketIndex + unitMagnitude);
+    return lowest + ((1L << (bucketIndex + unitMagnitude)) >> 1);
+  }
+
+  @Override
+  public synchronized int size() {
+    long[] counts = new long[length];
+    previous.drainTo(counts);
+    current.drainTo(counts);
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    return (int) Math.min(total, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void update(long value) {
+    if (value < 0) {
+      value = 0;
+    } else if (value > highestTrackableValue) {
+      value = highestTrackableValue;
+    }
+    current.record(value, index(value));
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    long[] counts = new long[length];
+    long[] extremes = { Long.MAX_VALUE, Long.MIN_VALUE };
+    drainTo(counts, extremes);
+    return new HdrSnapshot(counts, extremes[0], extremes[1]);
+  }
+
+  /**
+   * @return a snapshot of the values recorded by all the {@code reservoirs}, created with the same arguments
+   */
+  static Snapshot merge(List<HdrReservoir> reservoirs) {
+    HdrReservoir first = reservoirs.get(0);
+    long[] counts = new long[first.length];
+    long[] extremes = { Long.MAX_VALUE, Long.MIN_VALUE };
+    for (HdrReservoir reservoir : reservoirs) {
+      reservoir.drainTo(counts, extremes);
+    }
+    return first.new HdrSnapshot(counts, extremes[0], extremes[1]);
+  }
+
+  private synchronized void drainTo(long[] counts, long[] extremes) {
+    long now = System.nanoTime();
+    if (now - rotation >= WINDOW) {
+      Interval next = previous;
+      next.reset();
+      previous = current;
+      current = next;
+      rotation = now;
+    }
+    previous.drainTo(counts);
+    current.drainTo(counts);
+    extremes[0] = Math.min(extremes[0], Math.min(previous.min.get(), current.min.get()));
+    extremes[1] = Math.max(extremes[1], Math.max(previous.max.get(), current.max.get()));
+  }
+
+  private static class Interval {
+
+    final AtomicLongArray counts;
+    final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    Interval(int length) {
+      counts = new AtomicLongArray(length);
+    }
+
+    void record(long value, int index) {
+      counts.incrementAndGet(index);
+      // only contended until the extremes settle
+      if (value < min.get()) {
+        min.accumulateAndGet(value, Math::min);
+      }
+      if (value > max.get()) {
+        max.accumulateAndGet(value, Math::max);
+      }
+    }
+
+    void drainTo(long[] to) {
+      for (int i = 0;i < to.length;i++) {
+        to[i] += counts.get(i);
+      }
+    }
+
+    void reset() {
+      for (int i = 0;i < counts.length();i++) {
+        counts.set(i, 0);
+      }
+      min.set(Long.MAX_VALUE);
+      max.set(Long.MIN_VALUE);
+    }
+  }
+
+  private class HdrSnapshot extends Snapshot {
+
+    private final long[] counts;
+    private final long total;
+    private final long min;
+    private final long max;
+
+    HdrSnapshot(long[] counts, long min, long max) {
+      long total = 0;
+      for (long count : counts) {
+        total += count;
+      }
+      this.counts = counts;
+      this.total = total;
+      this.min = total > 0 ? min : 0;
+      this.max = total > 0 ? max : 0;
+    }
+
+    // bucket values are approximations, they must not exceed the exact extremes
+    private long valueOf(int index) {
+      return Math.max(min, Math.min(max, valueAt(index)));
+    }
+
+    private long valueAtRank(long rank) {
+      long seen = 0;
+      for (int i = 0;i < counts.length;i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return valueOf(i);
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+      if (total == 0) {
+        return 0;
+      }
+      return valueAtRank(Math.max(1, (long) Math.ceil(quantile * total)));
+    }
+
+    /**
+     * @return the values at evenly spaced ranks, at most as many as the default reservoir would sample
+     */
+    @Override
+    public long[] getValues() {
+      int size = (int) Math.min(total, SNAPSHOT_VALUES);
+      long[] values = new long[size];
+      long seen = 0;
+      int index = 0;
+      for (int i = 0;i < size;i++) {
+        long rank = 1 + (i * total) / size;
+        while (seen + counts[index] < rank) {
+          seen += counts[index++];
+        }
+        values[i] = valueOf(index);
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public long getMin() {
+      return min;
+    }
+
+    @Override
+    public double getMean() {
+      if (total == 0) {
+        return 0;
+      }
+      double sum = 0;
+      for (int i = 0;i < counts.length;i++) {
+        if (counts[i] > 0) {
+          sum += (double) valueOf(i) * counts[i];
+        }
+      }
+      return sum / total;
+    }
+
+    @Override
+    public double getStdDev() {
+      if (total <= 1) {
+        return 0;
+      }
+      double mean = getMean();
+      double sum = 0;
+      for (int i = 0;i < counts.length;i++) {
+        if (counts[i] > 0) {
+          double diff = valueOf(i) - mean;
+          sum += diff * diff * counts[i];
+        }
+      }
+      return Math.sqrt(sum / (total - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Gauge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A gauge of the keys with the largest weights, e.g the remote hosts exchanging the most bytes, estimated with the
+ * space-saving algorithm: a fixed number of keys is counted and an unknown key replaces the key with the lowest
+ * count, inheriting its count. The keys with the largest weights are kept whatever the number of keys, their
+ * counts may be over-estimated by the counts they inherited.
+ * <p>
+ * The keys are counted over the last one to two windows, as {@link WindowedPeak} does: a new sketch is started once
+ * per window and the sketch of the previous window is kept until the next one, so the keys that stopped exchanging
+ * bytes leave the gauge.
+ * <p>
+ * Each event-loop thread counts its own keys, as {@link ShardedReservoir} does, the counts of a key are summed
+ * when the gauge is read. The value of the gauge is a map of the {@code size} keys with the largest counts, in
+ * descending order. A map of strings and longs is serializable, so JMX clients can read it as well as the JSON
+ * snapshots.
+ */
+class HeavyHitters implements Gauge<Map<String, Long>> {
+
+  // the keys counted for each reported key, the more the more accurate
+  private static final int CAPACITY_FACTOR = 4;
+
+  // the same window as the hdr reservoirs
+  private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+  private final long origin = System.nanoTime();
+  private final int size;
+  private final Shards assignment;
+  private final AtomicReferenceArray<Window> shards;
+
+  HeavyHitters(Shards assignment, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Invalid size " + size);
+    }
+    this.size = size;
+    this.assignment = assignment;
+    this.shards = new AtomicReferenceArray<>(assignment.count());
+  }
+
+  private long epoch() {
+    return (System.nanoTime() - origin) / WINDOW;
+  }
+
+  void add(String key, long weight) {
+    int index = assignment.index();
+    long epoch = epoch();
+    Window window = shards.get(index);
+    while (window == null || window.epoch < epoch) {
+      Window next = new Window(epoch, new Sketch(size * CAPACITY_FACTOR), window != null && window.epoch == epoch - 1 ? window.current : null);
+      window = shards.compareAndSet(index, window, next) ? next : shards.get(index);
+    }
+    window.current.add(key, weight);
+  }
+
+  @Override
+  public Map<String, Long> getValue() {
+    long epoch = epoch();
+    Map<String, Long> counts = new HashMap<>();
+    for (int i = 0;i < shards.length();i++) {
+      Window window = shards.get(i);
+      if (window != null && window.epoch >= epoch - 1) {
+        window.current.drainTo(counts);
+        if (window.previous != null && window.epoch == epoch) {
+          window.previous.drainTo(counts);
+        }
+      }
+    }
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    Map<String, Long> top = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(size, entries.size()))) {
+      top.put(entry.getKey(), entry.getValue());
+    }
+    return top;
+  }
+
+  /**
+   * The sketch of the window of a shard and the sketch of the window before, if the shard counted keys then.
+   */
+  private static class Window {
+
+    final long epoch;
+    final Sketch current;
+    final Sketch previous;
+
+    Window(long epoch, Sketch current, Sketch previous) {
+      this.epoch = epoch;
+      this.current = current;
+      this.previous = previous;
+    }
+  }
+
+  /**
+   * The counted keys, in a min-heap of their counts so the key to replace is found in constant time.
+   */
+  private static class Sketch {
+
+    private final Map<String, Counted> keys;
+    private final Counted[] heap;
+    private int length;
+
+    Sketch(int capacity) {
+      keys = new HashMap<>(capacity * 2);
+      heap = new Counted[capacity];
+    }
+
+    synchronized void add(String key, long weight) {
+      Counted counted = keys.get(key);
+      if (counted != null) {
+        counted.count += weight;
+        siftDown(counted.index);
+      } else if (length < heap.length) {
+        counted = new Counted(key, length);
+        counted.count = weight;
+        heap[length++] = counted;
+        keys.put(key, counted);
+        siftUp(counted.index);
+      } else {
+        // replace the lowest count, the entry is reused
+        counted = heap[0];
+        keys.remove(counted.key);
+        counted.key = key;
+        counted.count += weight;
+        keys.put(key, counted);
+        siftDown(0);
+      }
+    }
+
+    synchronized void drainTo(Map<String, Long> to) {
+      for (int i = 0;i < length;i++) {
+        to.merge(heap[i].key, heap[i].count, Long::sum);
+      }
+    }
+
+    private void siftUp(int index) {
+      Counted counted = heap[index];
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (heap[parent].count <= counted.count) {
+          break;
+        }
+        move(heap[parent], index);
+        index = parent;
+      }
+      move(counted, index);
+    }
+
+    private void siftDown(int index) {
+      Counted counted = heap[index];
+      while (true) {
+        int child = 2 * index + 1;
+        if (child >= length) {
+          break;
+        }
+        if (child + 1 < length && heap[child + 1].count < heap[child].count) {
+          child++;
+        }
+        if (counted.count <= heap[child].count) {
+          break;
+        }
+        move(heap[child], index);
+        index = child;
+      }
+      move(counted, index);
+    }
+
+    private void move(Counted counted, int index) {
+      heap[index] = counted;
+      counted.index = index;
+    }
+  }
+
+  private static class Counted {
+
+    String key;
+    long count;
+    int index;
+
+    Counted(String key, int index) {
+      this.key = key;
+      this.index = index;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package io.vertx.ext.dropwizard.impl;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
@@ -22,6 +23,10 @@ public class Helper {
   public static JsonObject convertMetric(Metric metric, TimeUnit rateUnit, TimeUnit durationUnit) {
     if (metric instanceof Timer) {
       return toJson((Timer) metric, rateUnit, durationUnit);
+    } else if (metric instanceof SumCounter) {
+      return toJson((Counting) metric);
+    } else if (metric instanceof SumThroughputMeter) {
+      return toJson((SumThroughputMeter) metric, rateUnit);
     } else if (metric instanceof Gauge) {
       return toJson((Gauge) metric);
     } else if (metric instanceof Counter) {
@@ -39,7 +44,7 @@ public class Helper {
     return new JsonObject().put("type", "gauge").put("value", gauge.getValue());
   }
 
-  private static JsonObject toJson(Counter counter) {
+  private static JsonObject toJson(Counting counter) {
     return new JsonObject().put("type", "counter").put("count", counter.getCount());
   }
 
@@ -71,6 +76,14 @@ public class Helper {
     return json;
   }
 
+  private static JsonObject toJson(SumThroughputMeter meter, TimeUnit rateUnit) {
+    JsonObject json = new JsonObject();
+    json.put("type", "meter");
+    json.put("oneSecondRate", meter.getValue());
+    populateMetered(json, meter, rateUnit);
+    return json;
+  }
+
   private static JsonObject toJson(Timer timer, TimeUnit rateUnit, TimeUnit durationUnit) {
     Snapshot snapshot = timer.getSnapshot();
     JsonObject json = new JsonObject();
@@ -36,11 +36,11 @@ class HttpClientMetricsImpl extends AbstractMetrics implements HttpClientMetrics
   private final Matcher monitoredEndpoints;
   final HttpClientReporter clientReporter;
 
-  HttpClientMetricsImpl(VertxMetricsImpl owner, HttpClientReporter clientReporter, HttpClientConfig config, List<Match> monitoredUris, Matcher monitoredEndpoints) {
-    super(clientReporter.registry, clientReporter.baseName);
+  HttpClientMetricsImpl(VertxMetricsImpl owner, HttpClientReporter clientReporter, HttpClientConfig config, List<Match> monitoredUris, Matcher monitoredEndpoints, MatchCache matchCache) {
+    super(clientReporter.registry, clientReporter.baseName, clientReporter.options, clientReporter.shards);
     this.owner = owner;
     this.clientReporter = clientReporter;
-    this.uriMatcher = monitoredUris == null ? null : new Matcher(monitoredUris);
+    this.uriMatcher = monitoredUris == null ? null : new Matcher(monitoredUris, matchCache);
     this.monitoredEndpoints = monitoredEndpoints;
     clientReporter.incMaxPoolSize(1);
   }
@@ -2,6 +2,7 @@ package io.vertx.ext.dropwizard.impl;
 
 import com.codahale.metrics.MetricRegistry;
 import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -10,8 +11,8 @@ class HttpClientReporter extends HttpMetricsImpl {
 
   int totalMaxPoolSize;
 
-  public HttpClientReporter(MetricRegistry registry, String baseName, SocketAddress localAdress) {
-    super(registry, baseName);
+  HttpClientReporter(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards, SocketAddress localAdress) {
+    super(registry, baseName, options, shards);
 
     // max pool size gauge
     gauge(() -> totalMaxPoolSize, "connections", "max-pool-size");
@@ -17,13 +17,19 @@
 package io.vertx.ext.dropwizard.impl;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import io.vertx.ext.dropwizard.ThroughputMeter;
 import io.vertx.ext.dropwizard.ThroughputTimer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,14 +37,29 @@ import java.util.concurrent.TimeUnit;
  */
 abstract class HttpMetricsImpl extends AbstractMetrics {
 
+  // the kinds of bodies, indexes of the body metrics arrays
+  private static final int REQUEST_BODY = 0;
+  private static final int RESPONSE_BODY = 1;
+  private static final String[] BODY_KINDS = { "request", "response" };
+
+  // the phases of a server request, indexes of the phase timers arrays
+  private static final int PROCESSING_PHASE = 0;
+  private static final int STREAMING_PHASE = 1;
+  private static final String[] PHASES = { "request-processing", "response-streaming" };
+
   private ThroughputTimer requests;
   private ThroughputMeter[] responses;
+  private final BodyMetrics[] bodies = new BodyMetrics[2];
+  private final Timer[] phases = new Timer[2];
   private final Counter openWebSockets;
 
-  private final Map<HttpMethod, ThroughputTimer> methodRequests;
+  private final Map<HttpMethod, MethodMetrics> methodRequests;
+  private final ConcurrentMap<String, MatchMetrics> matchMetrics;
+  private final CardinalityLimiter matchNames;
+  private volatile MatchMetrics overflowMetrics;
 
-  public HttpMetricsImpl(MetricRegistry registry, String baseName) {
-    super(registry, baseName);
+  HttpMetricsImpl(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards) {
+    super(registry, baseName, options, shards);
     openWebSockets = counter("open-websockets");
     requests = throughputTimer("requests");
     responses = new ThroughputMeter[]{
@@ -49,9 +70,14 @@ abstract class HttpMetricsImpl extends AbstractMetrics {
         throughputMeter("responses-5xx")
     };
     methodRequests = new HashMap<>();
+    int index = 0;
     for (HttpMethod method : HttpMethod.values()) {
-      methodRequests.put(method, throughputTimer(method.toString().toLowerCase() + "-requests"));
+      String prefix = method.toString().toLowerCase() + "-";
+      String name = prefix + "requests";
+      methodRequests.put(method, new MethodMetrics(index++, prefix, name, throughputTimer(name)));
     }
+    matchMetrics = new ConcurrentHashMap<>();
+    matchNames = cardinalityLimiter(options.getMaxHttpMatches(), "matches");
   }
 
   /**
@@ -64,22 +90,98 @@ abstract class HttpMetricsImpl extends AbstractMetrics {
     return null;
   }
 
+  /**
+   * Signal a server request in flight, the uri match of the request is resolved and its in flight counter
+   * is incremented.
+   *
+   * @param metric the request metric
+   * @param uriMatcher the Matcher instance
+   */
+  protected void enter(HttpRequestMetric metric, Matcher uriMatcher) {
+    if (uriMatcher != null && metric.uri != null) {
+      String uriMatch = uriMatcher.matches(metric.uri);
+      if (uriMatch != null) {
+        metric.uriMatchMetrics = matchMetrics(uriMatch);
+        metric.uriMatchMetrics.inFlight().inc();
+      }
+    }
+    metric.inFlight = true;
+  }
+
+  /**
+   * Resolve the route match of a server request each time it is routed, the request is then counted in flight of
+   * the match of its route so far, while the handlers of the route run, until it is routed again or it leaves. A
+   * request whose route does not match is not counted in flight of any route.
+   *
+   * @param metric the request metric
+   * @param routeMatcher the Matcher instance
+   */
+  protected void routed(HttpRequestMetric metric, Matcher routeMatcher) {
+    String route = metric.getRoute();
+    if (route == null) {
+      return;
+    }
+    String routeMatch = routeMatcher.matches(route);
+    MatchMetrics routeMatchMetrics = routeMatch != null ? matchMetrics(routeMatch) : null;
+    metric.routeMatchMetrics = routeMatchMetrics;
+    if (metric.inFlight) {
+      Counter routeInFlight = routeMatchMetrics != null ? routeMatchMetrics.inFlight() : null;
+      if (routeInFlight != metric.routeInFlight) {
+        if (metric.routeInFlight != null) {
+          metric.routeInFlight.dec();
+        }
+        if (routeInFlight != null) {
+          routeInFlight.inc();
+        }
+        metric.routeInFlight = routeInFlight;
+      }
+    }
+  }
+
+  /**
+   * Signal a server request no longer in flight, after its response ended or it was reset.
+   *
+   * @param metric the request metric
+   * @return whether the request was in flight
+   */
+  protected boolean leave(HttpRequestMetric metric) {
+    if (!metric.inFlight) {
+      return false;
+    }
+    metric.inFlight = false;
+    if (metric.uriMatchMetrics != null) {
+      metric.uriMatchMetrics.inFlight().dec();
+    }
+    if (metric.routeInFlight != null) {
+      metric.routeInFlight.dec();
+      metric.routeInFlight = null;
+    }
+    return true;
+  }
+
   /**
    * Signal end of request.
    *
    * @param metric the request metric
    * @param statusCode the status code, {@code 0} means a reset
-   * @param uriMatcher the Matcher instance
+   * @param uriMatcher the Matcher instance, {@code null} when the uri match was resolved when the request entered
+   * @param routeMatcher the Matcher instance, {@code null} when the route match was resolved when the request was routed
    */
   protected long end(HttpRequestMetric metric, int statusCode, Matcher uriMatcher, Matcher routeMatcher) {
-    String uriMatch = null;
-    String routeMatch = null;
+    MatchMetrics uriMatchMetrics = metric.uriMatchMetrics;
+    MatchMetrics routeMatchMetrics = metric.routeMatchMetrics;
     if (uriMatcher != null && metric.uri != null) {
-      uriMatch = uriMatcher.matches(metric.uri);
+      String uriMatch = uriMatcher.matches(metric.uri);
+      if (uriMatch != null) {
+        uriMatchMetrics = matchMetrics(uriMatch);
+      }
     }
     String route = metric.getRoute();
     if (routeMatcher != null && route != null) {
-      routeMatch = routeMatcher.matches(route);
+      String routeMatch = routeMatcher.matches(route);
+      if (routeMatch != null) {
+        routeMatchMetrics = matchMetrics(routeMatch);
+      }
     }
 
     long duration = System.nanoTime() - metric.requestBegin;
@@ -94,32 +196,210 @@ abstract class HttpMetricsImpl extends AbstractMetrics {
     requests.update(duration, TimeUnit.NANOSECONDS);
 
     // Update specific method / uri request metrics
-    ThroughputTimer throughputTimerForMethod;
-    if (metric.method != null && (throughputTimerForMethod = methodRequests.get(metric.method)) != null) {
-      throughputTimerForMethod.update(duration, TimeUnit.NANOSECONDS);
-      if (uriMatch != null) {
-        throughputTimer(metric.method.toString().toLowerCase() + "-requests", uriMatch).update(duration, TimeUnit.NANOSECONDS);
-        throughputMeter("responses" + "-" + responseStatus + "xx", uriMatch).mark();
-      }
-      if (routeMatch != null) {
-        throughputTimer(metric.method.toString().toLowerCase() + "-requests", routeMatch).update(duration, TimeUnit.NANOSECONDS);
-        throughputMeter("responses" + "-" + responseStatus + "xx", routeMatch).mark();
-      }
-    } else {
-      if (uriMatch != null) {
-        throughputTimer("requests", uriMatch).update(duration, TimeUnit.NANOSECONDS);
-        throughputMeter("responses" + "-" + responseStatus + "xx", uriMatch).mark();
+    MethodMetrics methodMetrics = metric.method != null ? methodRequests.get(metric.method) : null;
+    if (methodMetrics != null) {
+      methodMetrics.requests.update(duration, TimeUnit.NANOSECONDS);
+    }
+    if (uriMatchMetrics != null) {
+      uriMatchMetrics.update(methodMetrics, responseStatus, duration);
+    }
+    if (routeMatchMetrics != null) {
+      routeMatchMetrics.update(methodMetrics, responseStatus, duration);
+    }
+
+    // Update the phase metrics when the beginning of the response is known
+    if (metric.responseBegun) {
+      long processing = metric.responseBegin - metric.requestBegin;
+      long streaming = duration - processing;
+      updatePhases(phases, null, processing, streaming);
+      if (uriMatchMetrics != null) {
+        updatePhases(uriMatchMetrics.phases, uriMatchMetrics.match, processing, streaming);
       }
-      if (routeMatch != null) {
-        throughputTimer("requests", routeMatch).update(duration, TimeUnit.NANOSECONDS);
-        throughputMeter("responses" + "-" + responseStatus + "xx", routeMatch).mark();
+      if (routeMatchMetrics != null) {
+        updatePhases(routeMatchMetrics.phases, routeMatchMetrics.match, processing, streaming);
       }
     }
 
+    // Update body metrics, the request body can end after the response
+    metric.uriMatchMetrics = uriMatchMetrics;
+    metric.routeMatchMetrics = routeMatchMetrics;
+    metric.responseEnded = true;
+    if (metric.bytesWritten >= 0) {
+      updateBody(RESPONSE_BODY, metric, methodMetrics, metric.bytesWritten);
+    }
+    if (metric.bytesRead >= 0) {
+      updateBody(REQUEST_BODY, metric, methodMetrics, metric.bytesRead);
+    }
+
     return duration;
   }
 
+  /**
+   * Signal the end of a request body, the body metrics are updated once the response has ended.
+   *
+   * @param metric the request metric
+   * @param bytesRead the size of the request body
+   */
+  protected void requestBodyEnd(HttpRequestMetric metric, long bytesRead) {
+    metric.bytesRead = bytesRead;
+    if (metric.responseEnded) {
+      MethodMetrics methodMetrics = metric.method != null ? methodRequests.get(metric.method) : null;
+      updateBody(REQUEST_BODY, metric, methodMetrics, bytesRead);
+    }
+  }
+
+  private void updatePhases(Timer[] cache, String match, long processing, long streaming) {
+    phaseTimer(cache, PROCESSING_PHASE, match).update(processing, TimeUnit.NANOSECONDS);
+    phaseTimer(cache, STREAMING_PHASE, match).update(streaming, TimeUnit.NANOSECONDS);
+  }
+
+  // racy lazy initialization is fine since the registry returns the same metric for a given name
+  private Timer phaseTimer(Timer[] cache, int phase, String match) {
+    Timer timer = cache[phase];
+    if (timer == null) {
+      timer = timer(PHASES[phase], match);
+      cache[phase] = timer;
+    }
+    return timer;
+  }
+
+  private void updateBody(int kind, HttpRequestMetric metric, MethodMetrics methodMetrics, long size) {
+    bodyMetrics(bodies, kind, "", null).update(size);
+    if (methodMetrics != null) {
+      bodyMetrics(methodMetrics.bodies, kind, methodMetrics.prefix, null).update(size);
+    }
+    MatchMetrics matchMetrics = metric.uriMatchMetrics;
+    if (matchMetrics != null) {
+      bodyMetrics(matchMetrics.bodies, kind, "", matchMetrics.match).update(size);
+    }
+    matchMetrics = metric.routeMatchMetrics;
+    if (matchMetrics != null) {
+      bodyMetrics(matchMetrics.bodies, kind, "", matchMetrics.match).update(size);
+    }
+  }
+
+  // racy lazy initialization is fine since the registry returns the same metric for a given name
+  private BodyMetrics bodyMetrics(BodyMetrics[] cache, int kind, String prefix, String match) {
+    BodyMetrics metrics = cache[kind];
+    if (metrics == null) {
+      String name = prefix + BODY_KINDS[kind];
+      metrics = new BodyMetrics(meter(name + "-bytes", match), sizeHistogram(name + "-size", match));
+      cache[kind] = metrics;
+    }
+    return metrics;
+  }
+
   protected void disconnect(WebSocketMetric metric) {
     openWebSockets.dec();
   }
+
+  private MatchMetrics matchMetrics(String match) {
+    MatchMetrics metrics = matchMetrics.get(match);
+    if (metrics == null) {
+      if (matchNames != null && matchNames.admit(match) == CardinalityLimiter.OVERFLOW) {
+        // the limiter remembers the folded matches, a folded match is not counted again
+        metrics = overflowMetrics;
+        if (metrics == null) {
+          metrics = overflowMetrics = matchMetrics.computeIfAbsent(CardinalityLimiter.OVERFLOW, MatchMetrics::new);
+        }
+        return metrics;
+      }
+      metrics = matchMetrics.computeIfAbsent(match, MatchMetrics::new);
+    }
+    return metrics;
+  }
+
+  private static class MethodMetrics {
+
+    final int index;
+    final String prefix;
+    final String name;
+    final ThroughputTimer requests;
+    final BodyMetrics[] bodies = new BodyMetrics[2];
+
+    MethodMetrics(int index, String prefix, String name, ThroughputTimer requests) {
+      this.index = index;
+      this.prefix = prefix;
+      this.name = name;
+      this.requests = requests;
+    }
+  }
+
+  /**
+   * The metrics of request or response bodies: the rate of the bytes and the distribution of the body sizes.
+   */
+  private static class BodyMetrics {
+
+    final Meter bytes;
+    final Histogram sizes;
+
+    BodyMetrics(Meter bytes, Histogram sizes) {
+      this.bytes = bytes;
+      this.sizes = sizes;
+    }
+
+    void update(long size) {
+      bytes.mark(size);
+      sizes.update(size);
+    }
+  }
+
+  /**
+   * The metrics of a matched uri or route, the handles are resolved from the registry on first use and then
+   * kept, so recording a request does not need to build metric names nor to look up the registry.
+   */
+  class MatchMetrics {
+
+    private final String match;
+    private final ThroughputTimer[] methodRequests;
+    private final ThroughputMeter[] responses;
+    private final BodyMetrics[] bodies = new BodyMetrics[2];
+    private final Timer[] phases = new Timer[2];
+    private ThroughputTimer requests;
+    private Counter inFlight;
+
+    MatchMetrics(String match) {
+      this.match = match;
+      this.methodRequests = new ThroughputTimer[HttpMetricsImpl.this.methodRequests.size()];
+      this.responses = new ThroughputMeter[5];
+    }
+
+    // racy lazy initialization is fine since the registry returns the same metric for a given name
+    Counter inFlight() {
+      Counter counter = inFlight;
+      if (counter == null) {
+        counter = counter("requests-in-flight", match);
+        inFlight = counter;
+      }
+      return counter;
+    }
+
+    void update(MethodMetrics method, int responseStatus, long duration) {
+      ThroughputTimer timer;
+      if (method != null) {
+        timer = methodRequests[method.index];
+        if (timer == null) {
+          timer = throughputTimer(method.name, match);
+          methodRequests[method.index] = timer;
+        }
+      } else {
+        timer = requests;
+        if (timer == null) {
+          timer = throughputTimer("requests", match);
+          requests = timer;
+        }
+      }
+      timer.update(duration, TimeUnit.NANOSECONDS);
+      if (responseStatus >= 1 && responseStatus <= 5) {
+        ThroughputMeter meter = responses[responseStatus - 1];
+        if (meter == null) {
+          meter = throughputMeter("responses-" + responseStatus + "xx", match);
+          responses[responseStatus - 1] = meter;
+        }
+        meter.mark();
+      } else {
+        throughputMeter("responses-" + responseStatus + "xx", match).mark();
+      }
+    }
+  }
 }
@@ -4,6 +4,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.codahale.metrics.Counter;
 import io.vertx.core.http.HttpMethod;
 
 /**
@@ -14,6 +15,20 @@ class HttpRequestMetric {
   HttpMethod method;
   String uri;
   long requestBegin;
+  // whether a server request is counted in flight
+  boolean inFlight;
+  // set at the beginning of a server response
+  boolean responseBegun;
+  long responseBegin;
+  // the sizes of the bodies, -1 when not known
+  long bytesRead = -1;
+  long bytesWritten = -1;
+  // set at the end of the response
+  boolean responseEnded;
+  HttpMetricsImpl.MatchMetrics uriMatchMetrics;
+  HttpMetricsImpl.MatchMetrics routeMatchMetrics;
+  // the counter of the requests in flight of the route of a server request, or of the requests not routed yet
+  Counter routeInFlight;
 
   // a string for a single route, a list of string for multiple
   private Object routes;
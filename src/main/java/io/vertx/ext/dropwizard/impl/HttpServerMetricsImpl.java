@@ -16,37 +16,74 @@
 
 package io.vertx.ext.dropwizard.impl;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.core.spi.metrics.HttpServerMetrics;
 import io.vertx.core.spi.observability.HttpRequest;
 import io.vertx.core.spi.observability.HttpResponse;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import io.vertx.ext.dropwizard.Match;
+import io.vertx.ext.dropwizard.ThroughputMeter;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
  */
 class HttpServerMetricsImpl extends HttpMetricsImpl implements HttpServerMetrics<HttpRequestMetric, WebSocketMetric> {
 
+  // the route bucket of the requests in flight not routed yet
+  static final String UNROUTED = "__unrouted__";
+
   private final Matcher uriMatcher;
   private final Matcher routeMatcher;
+  private final Counter inFlight;
+  private final Counter unrouted;
+  private final ThroughputMeter resets;
+  private final Timer resetLifetime;
 
-  HttpServerMetricsImpl(MetricRegistry registry, String baseName, List<Match> monitoredUris, List<Match> monitoredRoutes) {
-    super(registry, baseName);
-    uriMatcher = monitoredUris == null ? null : new Matcher(monitoredUris);
-    routeMatcher = monitoredRoutes == null ? null : new Matcher(monitoredRoutes);
+  HttpServerMetricsImpl(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards, MatchCache matchCache) {
+    super(registry, baseName, options, shards);
+    List<Match> monitoredUris = options.getMonitoredHttpServerUris();
+    List<Match> monitoredRoutes = options.getMonitoredHttpServerRoutes();
+    uriMatcher = monitoredUris == null ? null : new Matcher(monitoredUris, matchCache);
+    routeMatcher = monitoredRoutes == null ? null : new Matcher(monitoredRoutes, matchCache);
+    inFlight = counter("requests-in-flight");
+    unrouted = routeMatcher == null ? null : counter("requests-in-flight", UNROUTED);
+    resets = throughputMeter("requests-reset");
+    resetLifetime = timer("requests-reset-lifetime");
+  }
+
+  private HttpRequestMetric begin(HttpMethod method, String uri) {
+    HttpRequestMetric metric = new HttpRequestMetric().init(method, uri);
+    enter(metric, uriMatcher);
+    inFlight.inc();
+    if (unrouted != null) {
+      // until the request is routed
+      unrouted.inc();
+      metric.routeInFlight = unrouted;
+    }
+    return metric;
   }
 
   @Override
   public HttpRequestMetric requestBegin(SocketAddress remoteAddress, HttpRequest request) {
-    return new HttpRequestMetric().init(request.method(), request.uri());
+    return begin(request.method(), request.uri());
+  }
+
+  @Override
+  public void requestEnd(HttpRequestMetric requestMetric, HttpRequest request, long bytesRead) {
+    requestBodyEnd(requestMetric, bytesRead);
   }
 
   @Override
   public void responseBegin(HttpRequestMetric requestMetric, HttpResponse response) {
+    requestMetric.responseBegin = System.nanoTime();
+    requestMetric.responseBegun = true;
   }
 
   @Override
@@ -56,16 +93,26 @@ class HttpServerMetricsImpl extends HttpMetricsImpl implements HttpServerMetrics
 
   @Override
   public void responseEnd(HttpRequestMetric requestMetric, HttpResponse response, long bytesWritten) {
-    end(requestMetric, response.statusCode(), uriMatcher, routeMatcher);
+    requestMetric.bytesWritten = bytesWritten;
+    if (leave(requestMetric)) {
+      inFlight.dec();
+    }
+    // the matches were resolved when the request entered and when it was routed
+    end(requestMetric, response.statusCode(), null, null);
   }
 
   @Override
   public void requestReset(HttpRequestMetric requestMetric) {
+    if (leave(requestMetric)) {
+      inFlight.dec();
+      resets.mark();
+      resetLifetime.update(System.nanoTime() - requestMetric.requestBegin, TimeUnit.NANOSECONDS);
+    }
   }
 
   @Override
   public HttpRequestMetric responsePushed(SocketAddress remoteAddress, HttpMethod method, String uri, HttpResponse response) {
-    return new HttpRequestMetric().init(method, uri);
+    return begin(method, uri);
   }
 
   @Override
@@ -75,8 +122,9 @@ class HttpServerMetricsImpl extends HttpMetricsImpl implements HttpServerMetrics
 
   @Override
   public void requestRouted(HttpRequestMetric requestMetric, String route) {
-    if (route != null) {
-      requestMetric.addRoute(route);
+    requestMetric.addRoute(route);
+    if (routeMatcher != null) {
+      routed(requestMetric, routeMatcher);
     }
   }
 }
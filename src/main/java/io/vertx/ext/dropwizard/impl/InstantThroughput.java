@@ -1,6 +1,8 @@
 package io.vertx.ext.dropwizard.impl;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -8,36 +10,61 @@ import java.util.concurrent.TimeUnit;
 public class InstantThroughput {
 
   static final long ONE_SEC = TimeUnit.SECONDS.toNanos(1);
-  static final long TWO_SECS = TimeUnit.SECONDS.toNanos(2);
-
-  private volatile long prevCount = -1;
-  private volatile long timestamp = 0;
-  private volatile long count = 0;
-
-  void check() {
-    long now = System.nanoTime();
-    if (now - timestamp > ONE_SEC) {
-      if (now - timestamp < TWO_SECS) {
-        prevCount = count;
-      } else {
-        if (prevCount > 0) {
-          prevCount = 0;
-        }
+
+  // size of the ring of per second buckets, a power of two
+  private static final int BUCKETS = 4;
+
+  private final long origin = System.nanoTime();
+  private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+  private long second() {
+    return (System.nanoTime() - origin) / ONE_SEC;
+  }
+
+  private Bucket bucket(long second) {
+    int index = (int) (second & (BUCKETS - 1));
+    while (true) {
+      Bucket bucket = buckets.get(index);
+      if (bucket != null && bucket.second >= second) {
+        // a late mark of a bucket already recycled counts for the newer second
+        return bucket;
+      }
+      Bucket next = new Bucket(second);
+      if (buckets.compareAndSet(index, bucket, next)) {
+        return next;
       }
-      timestamp = now;
-      count = 0;
     }
   }
 
   public void mark() {
-//    System.out.println("mark");
-    check();
-    count++;
+    bucket(second()).count.increment();
+  }
+
+  public void mark(long n) {
+    bucket(second()).count.add(n);
   }
 
   public long count() {
-//    System.out.println("count");
-    check();
-    return prevCount != -1 ? prevCount : count;
+    long second = second();
+    if (second == 0) {
+      // no full second elapsed yet
+      return count(0);
+    }
+    return count(second - 1);
+  }
+
+  private long count(long second) {
+    Bucket bucket = buckets.get((int) (second & (BUCKETS - 1)));
+    return bucket != null && bucket.second == second ? bucket.count.sum() : 0;
+  }
+
+  private static class Bucket {
+
+    final long second;
+    final LongAdder count = new LongAdder();
+
+    Bucket(long second) {
+      this.second = second;
+    }
   }
 }
@@ -0,0 +1,100 @@
+package io.vertx.ext.dropwizard.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of {@link Matcher} results, values that do not match are cached too. A single cache
+ * can be shared by several matchers.
+ * <p>
+ * The cache is a set associative array of entries: a value can only be cached in the few slots of its set
+ * and eviction within a set follows the CLOCK policy, i.e an entry hit since the last eviction attempt gets a second chance.
+ * The cache never locks, concurrent insertions may overwrite each other which only costs a miss.
+ */
+class MatchCache {
+
+  private static final int WAYS = 4;
+
+  private final AtomicReferenceArray<Entry> entries;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  MatchCache(int size) {
+    int capacity = WAYS;
+    while (capacity < size && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    entries = new AtomicReferenceArray<>(capacity);
+    mask = capacity / WAYS - 1;
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  String matches(Matcher matcher, String value) {
+    int hash = hash(matcher, value);
+    int base = (hash & mask) * WAYS;
+    for (int i = 0;i < WAYS;i++) {
+      Entry entry = entries.get(base + i);
+      if (entry != null && entry.hash == hash && entry.matcher == matcher && entry.value.equals(value)) {
+        if (!entry.referenced) {
+          entry.referenced = true;
+        }
+        hits.increment();
+        return entry.result;
+      }
+    }
+    misses.increment();
+    String result = matcher.match(value);
+    insert(base, new Entry(hash, matcher, value, result));
+    return result;
+  }
+
+  private void insert(int base, Entry entry) {
+    for (int i = 0;i < WAYS;i++) {
+      if (entries.get(base + i) == null) {
+        entries.set(base + i, entry);
+        return;
+      }
+    }
+    // start the sweep at a slot of the set depending on the hash, so slots are evicted evenly
+    int start = (entry.hash >>> 28) & (WAYS - 1);
+    for (int i = 0;i < 2 * WAYS;i++) {
+      int index = base + ((start + i) & (WAYS - 1));
+      Entry current = entries.get(index);
+      if (current == null || !current.referenced) {
+        entries.set(index, entry);
+        return;
+      }
+      current.referenced = false;
+    }
+    entries.set(base + start, entry);
+  }
+
+  private static int hash(Matcher matcher, String value) {
+    int h = value.hashCode() * 31 + matcher.id;
+    return h ^ (h >>> 16);
+  }
+
+  private static class Entry {
+
+    final int hash;
+    final Matcher matcher;
+    final String value;
+    final String result;
+    volatile boolean referenced;
+
+    Entry(int hash, Matcher matcher, String value, String result) {
+      this.hash = hash;
+      this.matcher = matcher;
+      this.value = value;
+      this.result = result;
+    }
+  }
+}
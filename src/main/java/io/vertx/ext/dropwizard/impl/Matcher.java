@@ -4,20 +4,44 @@ import io.vertx.ext.dropwizard.Match;
 import io.vertx.ext.dropwizard.MatchType;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 class Matcher {
+
+  private static final AtomicInteger IDS = new AtomicInteger();
+
+  // numbered back references cannot be kept when a pattern is nested in the alternation
+  private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]");
+
   private final Map<String, String> exactMatches;
+  private final SegmentTrie segmentMatches;
   private final Entry<Pattern, String>[] regexMatches;
   private final Map<String, String> aliases;
 
+  // all the regex matches compiled as a single alternation, the group of each alternative identifies the match
+  private final Pattern regexAlternation;
+  private final int[] regexGroups;
+
+  final int id;
+  private final MatchCache cache;
+
   Matcher(List<Match> matches) {
+    this(matches, null);
+  }
+
+  /**
+   * @param matches the matches
+   * @param cache the optional cache of the results
+   */
+  Matcher(List<Match> matches, MatchCache cache) {
     aliases = new HashMap<>();
 
     for (Match match : matches) {
@@ -30,12 +54,59 @@ class Matcher {
       .filter(match -> match.getType() == MatchType.EQUALS && match.getValue() != null)
       .collect(Collectors.toMap(Match::getValue, match -> match.getAlias() != null ? match.getAlias() : match.getValue()));
 
+    segmentMatches = new SegmentTrie();
+    for (Match match : matches) {
+      if (match.getValue() != null) {
+        String identifier = match.getAlias() != null ? match.getAlias() : match.getValue();
+        if (match.getType() == MatchType.PREFIX) {
+          segmentMatches.addPrefix(match.getValue(), identifier);
+        } else if (match.getType() == MatchType.TEMPLATE) {
+          segmentMatches.addTemplate(match.getValue(), identifier);
+        }
+      }
+    }
+
     @SuppressWarnings("unchecked")
     Entry<Pattern, String>[] entries = matches.stream()
       .filter(match -> match.getType() == MatchType.REGEX && match.getValue() != null)
       .map(match -> new SimpleEntry<>(Pattern.compile(match.getValue()), match.getAlias()))
       .toArray(Entry[]::new);
     regexMatches = entries;
+
+    Pattern alternation = null;
+    int[] groups = null;
+    if (entries.length > 1) {
+      groups = new int[entries.length];
+      StringBuilder sb = new StringBuilder();
+      int group = 1;
+      for (int i = 0;i < entries.length;i++) {
+        Pattern pattern = entries[i].getKey();
+        if (BACK_REFERENCE.matcher(pattern.pattern()).find() || pattern.flags() != 0) {
+          groups = null;
+          break;
+        }
+        if (i > 0) {
+          sb.append('|');
+        }
+        sb.append('(').append(pattern.pattern()).append(')');
+        groups[i] = group;
+        group += 1 + pattern.matcher("").groupCount();
+      }
+      if (groups != null) {
+        try {
+          alternation = Pattern.compile(sb.toString());
+        } catch (PatternSyntaxException e) {
+          // e.g the same named group in two patterns, fallback on matching each pattern
+          groups = null;
+        }
+      }
+    }
+    regexAlternation = alternation;
+    regexGroups = groups;
+
+    id = IDS.getAndIncrement();
+    // exact matches are cheaper than a cache lookup
+    this.cache = segmentMatches.isEmpty() && regexMatches.length == 0 ? null : cache;
   }
 
   /**
@@ -48,13 +119,37 @@ class Matcher {
    * @return the identifier or null
    */
   String matches(String value) {
+    if (cache != null) {
+      return cache.matches(this, value);
+    }
+    return match(value);
+  }
+
+  String match(String value) {
     if (exactMatches.size() > 0 && exactMatches.containsKey(value)) {
       String valueOrAlias = exactMatches.get(value);
       if (valueOrAlias != null) {
         return valueOrAlias;
       }
     }
-    if (regexMatches.length > 0) {
+    if (!segmentMatches.isEmpty()) {
+      String identifier = segmentMatches.match(value);
+      if (identifier != null) {
+        return identifier;
+      }
+    }
+    if (regexAlternation != null) {
+      java.util.regex.Matcher matcher = regexAlternation.matcher(value);
+      if (matcher.matches()) {
+        // alternatives are tried in order, so the first participating group is the first matching pattern
+        for (int i = 0;i < regexGroups.length;i++) {
+          if (matcher.start(regexGroups[i]) != -1) {
+            String alias = regexMatches[i].getValue();
+            return alias != null ? alias : value;
+          }
+        }
+      }
+    } else if (regexMatches.length > 0) {
       for (Entry<Pattern, String> entry : regexMatches) {
         if (entry.getKey().matcher(value).matches()) {
           String alias = entry.getValue();
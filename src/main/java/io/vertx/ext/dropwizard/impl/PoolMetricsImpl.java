@@ -5,19 +5,33 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.Timer;
 import io.vertx.core.spi.metrics.PoolMetrics;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * The queue and usage metrics of a pool carry the time they started in a {@link Sample}.
+ * <p>
+ * A sample is taken from the free list of the thread starting it and is handed back to this free list once it
+ * is dequeued or ended, whatever the thread stopping it: the samples of an event-loop thread submitting blocking
+ * tasks come back from the worker threads dequeuing them. A thread only allocates samples when it has more
+ * samples in flight than ever before, so the pool metrics allocate nothing once the pools are warm.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class PoolMetricsImpl extends AbstractMetrics implements PoolMetrics<Timer.Context, Timer.Context> {
+public class PoolMetricsImpl extends AbstractMetrics implements PoolMetrics<PoolMetricsImpl.Sample, PoolMetricsImpl.Sample> {
+
+  // the free list of the current thread, shared by the pools since samples only hold a time
+  private static final ThreadLocal<FreeList> freeLists = ThreadLocal.withInitial(FreeList::new);
 
   private final Timer queueDelay;
   private final Counter queueSize;
   private final Timer usage;
   private final Counter inUse;
 
-  public PoolMetricsImpl(MetricRegistry registry, String baseName, int maxSize) {
-    super(registry, baseName);
+  PoolMetricsImpl(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards, int maxSize) {
+    super(registry, baseName, options, shards);
     this.queueSize = counter("queue-size");
     this.queueDelay = timer("queue-delay");
     this.usage = timer("usage");
@@ -34,32 +48,98 @@ public class PoolMetricsImpl extends AbstractMetrics implements PoolMetrics<Time
     }
   }
 
+  private static Sample start() {
+    Sample sample = freeLists.get().take();
+    sample.start = System.nanoTime();
+    return sample;
+  }
+
+  private static void stop(Sample sample, Timer timer) {
+    timer.update(System.nanoTime() - sample.start, TimeUnit.NANOSECONDS);
+    sample.owner.release(sample);
+  }
+
   @Override
-  public Timer.Context enqueue() {
+  public Sample enqueue() {
     queueSize.inc();
-    return queueDelay.time();
+    return start();
   }
 
   @Override
-  public void dequeue(Timer.Context queueMetric) {
+  public void dequeue(Sample queueMetric) {
     queueSize.dec();
-    queueMetric.stop();
+    stop(queueMetric, queueDelay);
   }
 
   @Override
-  public Timer.Context begin() {
+  public Sample begin() {
     inUse.inc();
-    return usage.time();
+    return start();
   }
 
   @Override
-  public void end(Timer.Context usageMetric) {
+  public void end(Sample usageMetric) {
     inUse.dec();
-    usageMetric.stop();
+    stop(usageMetric, usage);
   }
 
   @Override
   public void close() {
     removeAll();
   }
+
+  /**
+   * The start time of a queued task or of a resource usage.
+   */
+  public static final class Sample {
+
+    private final FreeList owner;
+    private long start;
+    private Sample next;
+
+    private Sample(FreeList owner) {
+      this.owner = owner;
+    }
+  }
+
+  /**
+   * The samples of a thread: the samples released by the thread itself are kept in a plain list, the samples
+   * released by other threads are pushed on a lock-free stack that the thread takes at once when its own list is
+   * empty, so the owner never contends with the releasing threads for each sample.
+   */
+  private static final class FreeList {
+
+    private final Thread thread = Thread.currentThread();
+    private final AtomicReference<Sample> released = new AtomicReference<>();
+    // only accessed by the thread
+    private Sample local;
+
+    Sample take() {
+      Sample sample = local;
+      if (sample == null) {
+        sample = released.getAndSet(null);
+        if (sample == null) {
+          return new Sample(this);
+        }
+      }
+      local = sample.next;
+      sample.next = null;
+      return sample;
+    }
+
+    void release(Sample sample) {
+      if (Thread.currentThread() == thread) {
+        sample.next = local;
+        local = sample;
+        return;
+      }
+      while (true) {
+        Sample head = released.get();
+        sample.next = head;
+        if (released.compareAndSet(head, sample)) {
+          return;
+        }
+      }
+    }
+  }
 }
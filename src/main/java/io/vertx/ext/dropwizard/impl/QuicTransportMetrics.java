@@ -17,35 +17,60 @@
 package io.vertx.ext.dropwizard.impl;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.core.spi.metrics.TransportMetrics;
+import io.vertx.ext.dropwizard.ThroughputMeter;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 
 import java.util.concurrent.TimeUnit;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
  */
-class QuicTransportMetrics extends AbstractMetrics implements TransportMetrics<Long> {
+class QuicTransportMetrics extends AbstractMetrics implements TransportMetrics<ConnectionMetric> {
 
   private Counter openConnections;
   private Counter openStreams;
+  private final WindowedPeak openStreamsPeak;
   private Timer connections;
   private Counter bytesRead;
   private Counter bytesWritten;
   private Counter exceptions;
+  private final ThroughputMeter bytesReadRate;
+  private final ThroughputMeter bytesWrittenRate;
+  private final HeavyHitters topRemoteHosts;
+  private final Histogram connectionBytes;
+  private final Histogram connectionThroughput;
+  private final Histogram connectionStreams;
+  private final RemoteHostConnections remoteHosts;
   protected volatile boolean closed;
 
-  QuicTransportMetrics(MetricRegistry registry, String baseName) {
-    super(registry, baseName);
+  QuicTransportMetrics(MetricRegistry registry, String baseName, DropwizardMetricsOptions options, Shards shards) {
+    super(registry, baseName, options, shards);
 
     this.openConnections = counter("open-connections");
     this.openStreams = counter("open-streams");
+    this.openStreamsPeak = new WindowedPeak();
+    gauge(openStreamsPeak, "open-streams-peak");
     this.connections = timer("connections");
     this.exceptions = counter("exceptions");
     this.bytesRead = counter("bytes-read");
     this.bytesWritten = counter("bytes-written");
+    this.bytesReadRate = throughputMeter("bytes-read-rate");
+    this.bytesWrittenRate = throughputMeter("bytes-written-rate");
+    if (options.getTopRemoteHosts() > 0) {
+      this.topRemoteHosts = new HeavyHitters(shards, options.getTopRemoteHosts());
+      gauge(topRemoteHosts, "top-remote-hosts");
+    } else {
+      this.topRemoteHosts = null;
+    }
+    this.connectionBytes = sizeHistogram("connection-bytes");
+    this.connectionThroughput = sizeHistogram("connection-throughput");
+    this.connectionStreams = sizeHistogram("streams-per-connection");
+    this.remoteHosts = new RemoteHostConnections(this, cardinalityLimiter(options.getMaxRemoteHosts(), "open-connections"), options.getMaxIdleRemoteHosts());
   }
 
   @Override
@@ -55,16 +80,16 @@ class QuicTransportMetrics extends AbstractMetrics implements TransportMetrics<L
   }
 
   @Override
-  public Long connected(SocketAddress remoteAddress, String remoteName) {
+  public ConnectionMetric connected(SocketAddress remoteAddress, String remoteName) {
     // Connection metrics
     openConnections.inc();
 
     // On network outage the remoteAddress can be null.
     // Do not report the open-connections when it's null
+    RemoteHostConnections.Host host = null;
     if (remoteAddress != null) {
       // Remote address connection metrics
-      counter("open-connections", remoteAddress.host()).inc();
-
+      host = remoteHosts.connected(remoteAddress.host());
     }
 
     // A little clunky, but it's possible we got here after closed has been called
@@ -72,23 +97,23 @@ class QuicTransportMetrics extends AbstractMetrics implements TransportMetrics<L
       removeAll();
     }
 
-    return System.nanoTime();
+    return new ConnectionMetric(host);
   }
 
   @Override
-  public void disconnected(Long ctx, SocketAddress remoteAddress) {
+  public void disconnected(ConnectionMetric connectionMetric, SocketAddress remoteAddress) {
     openConnections.dec();
-    connections.update(System.nanoTime() - ctx, TimeUnit.NANOSECONDS);
+    long lifetime = System.nanoTime() - connectionMetric.connected;
+    connections.update(lifetime, TimeUnit.NANOSECONDS);
+    connectionBytes.update(connectionMetric.bytesRead + connectionMetric.bytesWritten);
+    long throughput = connectionMetric.throughput(lifetime);
+    if (throughput >= 0) {
+      connectionThroughput.update(throughput);
+    }
+    connectionStreams.update(connectionMetric.streams);
 
-    // On network outage the remoteAddress can be null.
-    // Do not report the open-connections when it's null
-    if (remoteAddress != null) {
-      // Remote address connection metrics
-      Counter counter = counter("open-connections", remoteAddress.host());
-      counter.dec();
-      if (counter.getCount() == 0) {
-        remove("open-connections", remoteAddress.host());
-      }
+    if (connectionMetric.host != null) {
+      remoteHosts.disconnected(connectionMetric.host);
     }
 
     // A little clunky, but it's possible we got here after closed has been called
@@ -98,31 +123,48 @@ class QuicTransportMetrics extends AbstractMetrics implements TransportMetrics<L
   }
 
   @Override
-  public void streamOpened(Long metric) {
+  public void streamOpened(ConnectionMetric metric) {
     openStreams.inc();
+    openStreamsPeak.inc();
+    metric.streams++;
   }
 
   @Override
-  public void streamClosed(Long metric) {
+  public void streamClosed(ConnectionMetric metric) {
     openStreams.dec();
+    openStreamsPeak.dec();
   }
 
   @Override
-  public void bytesRead(Long socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
+  public void bytesRead(ConnectionMetric socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
     if (numberOfBytes > 0L) {
       bytesRead.inc(numberOfBytes);
+      bytesReadRate.mark(numberOfBytes);
+      if (topRemoteHosts != null && remoteAddress != null) {
+        topRemoteHosts.add(remoteAddress.host(), numberOfBytes);
+      }
+      if (socketMetric != null) {
+        socketMetric.bytesRead += numberOfBytes;
+      }
     }
   }
 
   @Override
-  public void bytesWritten(Long socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
+  public void bytesWritten(ConnectionMetric socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
     if (numberOfBytes > 0L) {
       bytesWritten.inc(numberOfBytes);
+      bytesWrittenRate.mark(numberOfBytes);
+      if (topRemoteHosts != null && remoteAddress != null) {
+        topRemoteHosts.add(remoteAddress.host(), numberOfBytes);
+      }
+      if (socketMetric != null) {
+        socketMetric.bytesWritten += numberOfBytes;
+      }
     }
   }
 
   @Override
-  public void exceptionOccurred(Long socketMetric, SocketAddress remoteAddress, Throwable t) {
+  public void exceptionOccurred(ConnectionMetric socketMetric, SocketAddress remoteAddress, Throwable t) {
     exceptions.inc();
   }
 
@@ -21,7 +21,10 @@ import com.codahale.metrics.MetricRegistry;
 import io.vertx.ext.dropwizard.ThroughputMeter;
 import io.vertx.ext.dropwizard.ThroughputTimer;
 
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
@@ -29,49 +32,100 @@ import java.util.function.Function;
 class RegistryHelper {
 
   private static final Function<Metric, ThroughputMeter> THROUGHPUT_METER = metric -> {
-    if (metric != null) {
+    if (metric == null) {
+      return new ThroughputMeter();
+    } else if (metric instanceof ThroughputMeter) {
       return (ThroughputMeter) metric;
     } else {
-      return new ThroughputMeter();
+      return null;
     }
   };
 
-  private static final Function<Metric, ThroughputTimer> THROUGHPUT_TIMER = metric -> {
-    if (metric != null) {
-      return (ThroughputTimer) metric;
-    } else {
-      return new ThroughputTimer();
+  // weak keys: the index is only referenced by the registry it listens to
+  private static final Map<MetricRegistry, RegistryIndex> INDEXES = new WeakHashMap<>();
+
+  /**
+   * @return the index of the {@code registry} while it is {@link #retain(MetricRegistry) retained}, otherwise an
+   * empty index that does not listen to the registry, the lookups then fall back to the registry
+   */
+  static RegistryIndex index(MetricRegistry registry) {
+    synchronized (INDEXES) {
+      RegistryIndex index = INDEXES.get(registry);
+      return index != null ? index : new RegistryIndex();
     }
-  };
+  }
+
+  /**
+   * Declare a user of the index of the {@code registry}, the index is created and attached to the registry by its
+   * first user and listens to the registry until its last user {@link #release(MetricRegistry) releases} it.
+   */
+  static void retain(MetricRegistry registry) {
+    synchronized (INDEXES) {
+      RegistryIndex index = INDEXES.get(registry);
+      if (index == null) {
+        index = new RegistryIndex();
+        // the registry notifies the listener of the metrics it already contains
+        registry.addListener(index);
+        INDEXES.put(registry, index);
+      }
+      index.users++;
+    }
+  }
+
+  /**
+   * Release the index of the {@code registry}, the last user detaches the index from the registry, a registry shared
+   * with the application would otherwise keep notifying it.
+   */
+  static void release(MetricRegistry registry) {
+    RegistryIndex index;
+    synchronized (INDEXES) {
+      index = INDEXES.get(registry);
+      if (index == null || --index.users > 0) {
+        return;
+      }
+      INDEXES.remove(registry);
+    }
+    registry.removeListener(index);
+  }
 
   public static void shutdown(MetricRegistry registry) {
     registry.removeMatching((name, metric) -> true);
   }
 
-  public static ThroughputMeter throughputMeter(MetricRegistry registry, String name) {
-    return getOrAdd(registry, name, THROUGHPUT_METER);
+  public static ThroughputMeter throughputMeter(MetricRegistry registry, RegistryIndex index, String name) {
+    return getOrAdd(registry, index, name, THROUGHPUT_METER);
   }
 
-  public static ThroughputTimer throughputTimer(MetricRegistry registry, String name) {
-    return getOrAdd(registry, name, THROUGHPUT_TIMER);
+  public static ThroughputTimer throughputTimer(MetricRegistry registry, RegistryIndex index, String name, Supplier<ThroughputTimer> factory) {
+    return getOrAdd(registry, index, name, metric -> {
+      if (metric == null) {
+        return factory.get();
+      }
+      return metric instanceof ThroughputTimer ? (ThroughputTimer) metric : null;
+    });
   }
 
-  public static <M extends Metric> M getOrAdd(MetricRegistry registry, String name, Function<Metric, M> metricProvider) {
-    Metric metric = registry.getMetrics().get(name);
-    M found = metric != null ? metricProvider.apply(metric) : null;
-    if (found != null) {
-      return found;
-    } else if (metric == null) {
+  /**
+   * Get the metric registered under {@code name} or register a new one. The {@code metricProvider} creates the metric
+   * when it is given {@code null}, otherwise it returns the registered metric or {@code null} when it has a
+   * different type.
+   *
+   * @throws IllegalArgumentException when the name is used by a metric of a different type
+   */
+  public static <M extends Metric> M getOrAdd(MetricRegistry registry, RegistryIndex index, String name, Function<Metric, M> metricProvider) {
+    Metric metric = index.get(name);
+    if (metric == null) {
       try {
         return registry.register(name, metricProvider.apply(null));
       } catch (IllegalArgumentException e) {
+        // Concurrently registered or registered before the index was listening
         metric = registry.getMetrics().get(name);
-        found = metricProvider.apply(metric);
-        if (found != null) {
-          return found;
-        }
       }
     }
+    M found = metric != null ? metricProvider.apply(metric) : null;
+    if (found != null) {
+      return found;
+    }
     throw new IllegalArgumentException(name + " is already used for a different type of metric");
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A name to metric index of a {@link com.codahale.metrics.MetricRegistry} kept in sync by listening
+ * to the registry, {@code MetricRegistry#getMetrics()} copies the whole registry on each call and
+ * cannot be used on hot paths.
+ */
+class RegistryIndex implements MetricRegistryListener {
+
+  private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+  // the metrics instances using the index, guarded by the registry helper
+  int users;
+
+  Metric get(String name) {
+    return metrics.get(name);
+  }
+
+  private void added(String name, Metric metric) {
+    metrics.put(name, metric);
+  }
+
+  private void removed(String name) {
+    metrics.remove(name);
+  }
+
+  @Override
+  public void onGaugeAdded(String name, Gauge<?> gauge) {
+    added(name, gauge);
+  }
+
+  @Override
+  public void onGaugeRemoved(String name) {
+    removed(name);
+  }
+
+  @Override
+  public void onCounterAdded(String name, Counter counter) {
+    added(name, counter);
+  }
+
+  @Override
+  public void onCounterRemoved(String name) {
+    removed(name);
+  }
+
+  @Override
+  public void onHistogramAdded(String name, Histogram histogram) {
+    added(name, histogram);
+  }
+
+  @Override
+  public void onHistogramRemoved(String name) {
+    removed(name);
+  }
+
+  @Override
+  public void onMeterAdded(String name, Meter meter) {
+    added(name, meter);
+  }
+
+  @Override
+  public void onMeterRemoved(String name) {
+    removed(name);
+  }
+
+  @Override
+  public void onTimerAdded(String name, Timer timer) {
+    added(name, timer);
+  }
+
+  @Override
+  public void onTimerRemoved(String name) {
+    removed(name);
+  }
+}
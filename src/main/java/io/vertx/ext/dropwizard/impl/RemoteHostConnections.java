@@ -0,0 +1,210 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Counter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code open-connections.<host>} counters of a transport, kept in a table so connecting and disconnecting
+ * neither joins a metric name nor looks up the registry.
+ * <p>
+ * The counter of a host is registered when the host connects for the first time. It is removed when its last
+ * connection closes, or when more than {@code maxIdleHosts} hosts are idle so hosts reconnecting in a loop keep their
+ * counter, or when a new host needs the room of the cardinality limit.
+ * <p>
+ * Each transport owns the counters it registers: when another user of the registry, e.g a transport with the same
+ * name, already registered the counter of a host, the host counts its connections without reporting them until it
+ * is removed and created again.
+ */
+class RemoteHostConnections {
+
+  private final AbstractMetrics metrics;
+  private final CardinalityLimiter limiter;
+  // the idle hosts kept before removing them
+  private final int maxIdleHosts;
+  private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+  private final AtomicInteger idle = new AtomicInteger();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  RemoteHostConnections(AbstractMetrics metrics, CardinalityLimiter limiter, int maxIdleHosts) {
+    this.metrics = metrics;
+    this.limiter = limiter;
+    this.maxIdleHosts = maxIdleHosts;
+  }
+
+  /**
+   * Count a connection of a {@code host}.
+   *
+   * @return the host, which counts the connection until {@link #disconnected(Host)} is called
+   */
+  Host connected(String host) {
+    Host existing = hosts.get(host);
+    if (existing != null && existing.open()) {
+      return existing;
+    }
+    Host connected = open(host);
+    if (connected == null && idle.get() > 0 && sweep()) {
+      connected = open(host);
+    }
+    return connected != null ? connected : open(CardinalityLimiter.OVERFLOW);
+  }
+
+  /**
+   * Open a connection of a host, the name is admitted by the limiter when the host is created, so removing the last
+   * host of the name cannot concurrently release the name.
+   *
+   * @return the host or {@code null} when the host is beyond the limit
+   */
+  private Host open(String name) {
+    return hosts.compute(name, (key, current) -> {
+      if (current != null && current.open()) {
+        return current;
+      }
+      if (current == null && limiter != null && !CardinalityLimiter.OVERFLOW.equals(key) && CardinalityLimiter.OVERFLOW.equals(limiter.admit(key))) {
+        return null;
+      }
+      Host created = new Host(key);
+      try {
+        metrics.registry.register(metrics.nameOf("open-connections", key), created);
+        created.registered = true;
+      } catch (IllegalArgumentException e) {
+        // registered by another user of the registry, e.g a transport with the same name, that owns the counter
+      }
+      return created;
+    });
+  }
+
+  void disconnected(Host host) {
+    if (host.close()) {
+      if (maxIdleHosts == 0) {
+        remove(host.name);
+      } else if (idle.get() > maxIdleHosts) {
+        sweep();
+      }
+    }
+  }
+
+  /**
+   * Remove the idle hosts.
+   *
+   * @return whether hosts were removed
+   */
+  private boolean sweep() {
+    if (!sweeping.compareAndSet(false, true)) {
+      return false;
+    }
+    boolean removed = false;
+    try {
+      for (String key : hosts.keySet()) {
+        Host host = hosts.get(key);
+        if (host != null && host.isIdle()) {
+          removed |= remove(key);
+        }
+      }
+    } finally {
+      sweeping.set(false);
+    }
+    return removed;
+  }
+
+  /**
+   * Remove a host when it is idle.
+   *
+   * @return whether the host was removed
+   */
+  private boolean remove(String name) {
+    return hosts.computeIfPresent(name, (key, current) -> {
+      if (!current.retire()) {
+        return current;
+      }
+      if (current.registered) {
+        metrics.remove("open-connections", key);
+      }
+      if (limiter != null) {
+        limiter.release(key);
+      }
+      return null;
+    }) == null;
+  }
+
+  /**
+   * The open connections of a host, retired hosts count {@code -1} and can no longer be opened. The counter can
+   * also be updated through the registry.
+   */
+  class Host extends Counter {
+
+    private final String name;
+    private final AtomicLong open = new AtomicLong(1);
+    // whether this host is the counter registered under its name, only the registered host removes it
+    private boolean registered;
+
+    Host(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Add {@code n} connections, the count does not go below {@code 0}.
+     *
+     * @return the new count or {@code -1} when the host is retired
+     */
+    private long add(long n) {
+      while (true) {
+        long count = open.get();
+        if (count < 0) {
+          return -1;
+        }
+        long next = Math.max(0, count + n);
+        if (open.compareAndSet(count, next)) {
+          if (count == 0 && next > 0) {
+            idle.decrementAndGet();
+          } else if (count > 0 && next == 0) {
+            idle.incrementAndGet();
+          }
+          return next;
+        }
+      }
+    }
+
+    boolean open() {
+      return add(1) >= 0;
+    }
+
+    /**
+     * @return {@code true} when the last connection closed
+     */
+    boolean close() {
+      return add(-1) == 0;
+    }
+
+    boolean isIdle() {
+      return open.get() == 0;
+    }
+
+    boolean retire() {
+      if (open.compareAndSet(0, -1)) {
+        idle.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void inc(long n) {
+      add(n);
+    }
+
+    @Override
+    public void dec(long n) {
+      add(-n);
+    }
+
+    @Override
+    public long getCount() {
+      return Math.max(0, open.get());
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package io.vertx.ext.dropwizard.impl;
+
+/**
+ * A trie of {@code /} separated path segments matching {@link io.vertx.ext.dropwizard.MatchType#PREFIX} and
+ * {@link io.vertx.ext.dropwizard.MatchType#TEMPLATE} matches in a single walk of the value, without allocation.
+ * <p>
+ * A template match has precedence over a prefix match, literal segments have precedence over {@code {param}}
+ * segments and the longest prefix wins. The query of the value, if any, is ignored.
+ */
+class SegmentTrie {
+
+  private final Node root = new Node();
+  private boolean empty = true;
+
+  boolean isEmpty() {
+    return empty;
+  }
+
+  void addPrefix(String prefix, String identifier) {
+    int end = prefix.length();
+    if (end > 0 && prefix.charAt(end - 1) == '/') {
+      // "/api/" is the same prefix than "/api"
+      end--;
+    }
+    Node node = insert(prefix, end);
+    if (node.prefix == null) {
+      node.prefix = identifier;
+    }
+  }
+
+  void addTemplate(String template, String identifier) {
+    Node node = insert(template, template.length());
+    if (node.template == null) {
+      node.template = identifier;
+    }
+  }
+
+  private Node insert(String value, int end) {
+    empty = false;
+    Node node = root;
+    int start = 0;
+    while (start <= end) {
+      int stop = segmentEnd(value, start, end);
+      String segment = value.substring(start, stop);
+      if (segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+        if (node.param == null) {
+          node.param = new Node();
+        }
+        node = node.param;
+      } else {
+        node = node.addLiteral(segment);
+      }
+      start = stop + 1;
+    }
+    return node;
+  }
+
+  /**
+   * @return the identifier of the best match or {@code null}
+   */
+  String match(String value) {
+    int end = value.indexOf('?');
+    if (end < 0) {
+      end = value.length();
+    }
+    String match = matchTemplate(root, value, 0, end);
+    if (match == null) {
+      match = matchPrefix(root, value, 0, end);
+    }
+    return match;
+  }
+
+  private static String matchTemplate(Node node, String value, int start, int end) {
+    if (start > end) {
+      return node.template;
+    }
+    int stop = segmentEnd(value, start, end);
+    Node literal = node.literal(value, start, stop - start);
+    if (literal != null) {
+      String match = matchTemplate(literal, value, stop + 1, end);
+      if (match != null) {
+        return match;
+      }
+    }
+    if (node.param != null && stop > start) {
+      return matchTemplate(node.param, value, stop + 1, end);
+    }
+    return null;
+  }
+
+  private static String matchPrefix(Node node, String value, int start, int end) {
+    String match = null;
+    if (start <= end) {
+      int stop = segmentEnd(value, start, end);
+      Node literal = node.literal(value, start, stop - start);
+      if (literal != null) {
+        match = matchPrefix(literal, value, stop + 1, end);
+      }
+      if (match == null && node.param != null && stop > start) {
+        match = matchPrefix(node.param, value, stop + 1, end);
+      }
+    }
+    return match != null ? match : node.prefix;
+  }
+
+  private static int segmentEnd(String value, int start, int end) {
+    int stop = value.indexOf('/', start);
+    return stop < 0 || stop > end ? end : stop;
+  }
+
+  private static class Node {
+
+    private static final String[] NO_SEGMENTS = new String[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    // literal children, looked up by comparing regions of the value to avoid substring allocations
+    private String[] segments = NO_SEGMENTS;
+    private Node[] children = NO_NODES;
+    private Node param;
+    private String template;
+    private String prefix;
+
+    Node literal(String value, int start, int len) {
+      for (int i = 0;i < segments.length;i++) {
+        String segment = segments[i];
+        if (segment.length() == len && value.regionMatches(start, segment, 0, len)) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node addLiteral(String segment) {
+      for (int i = 0;i < segments.length;i++) {
+        if (segments[i].equals(segment)) {
+          return children[i];
+        }
+      }
+      int size = segments.length;
+      String[] nextSegments = new String[size + 1];
+      Node[] nextChildren = new Node[size + 1];
+      System.arraycopy(segments, 0, nextSegments, 0, size);
+      System.arraycopy(children, 0, nextChildren, 0, size);
+      Node child = new Node();
+      nextSegments[size] = segment;
+      nextChildren[size] = child;
+      segments = nextSegments;
+      children = nextChildren;
+      return child;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.UniformSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Reservoir} splitting its values in {@link HdrReservoir} shards, each event-loop thread updates its own
+ * shard so event-loop threads never contend on a shared reservoir. The other threads, e.g worker threads, share
+ * a single shard. The shards are created on the first update of their threads and merged exactly when a snapshot
+ * is taken.
+ * <p>
+ * The {@link Shards} of the Vert.x instance owning the reservoir assign the shards to the threads.
+ */
+class ShardedReservoir implements Reservoir {
+
+  private static final Snapshot EMPTY = new UniformSnapshot(new long[0]);
+
+  private final Shards assignment;
+  private final Supplier<HdrReservoir> factory;
+  private final AtomicReferenceArray<HdrReservoir> shards;
+
+  ShardedReservoir(Shards assignment, Supplier<HdrReservoir> factory) {
+    this.assignment = assignment;
+    this.factory = factory;
+    this.shards = new AtomicReferenceArray<>(assignment.count());
+  }
+
+  private HdrReservoir shard() {
+    int index = assignment.index();
+    HdrReservoir reservoir = shards.get(index);
+    if (reservoir == null) {
+      HdrReservoir created = factory.get();
+      reservoir = shards.compareAndSet(index, null, created) ? created : shards.get(index);
+    }
+    return reservoir;
+  }
+
+  private List<HdrReservoir> shardList() {
+    List<HdrReservoir> list = new ArrayList<>();
+    for (int i = 0;i < shards.length();i++) {
+      HdrReservoir reservoir = shards.get(i);
+      if (reservoir != null) {
+        list.add(reservoir);
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (HdrReservoir reservoir : shardList()) {
+      size += reservoir.size();
+    }
+    return size;
+  }
+
+  @Override
+  public void update(long value) {
+    shard().update(value);
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    List<HdrReservoir> shards = shardList();
+    if (shards.isEmpty()) {
+      // nothing recorded yet, the reading thread does not get a shard
+      return EMPTY;
+    }
+    if (shards.size() == 1) {
+      return shards.get(0).getSnapshot();
+    }
+    return HdrReservoir.merge(shards);
+  }
+}
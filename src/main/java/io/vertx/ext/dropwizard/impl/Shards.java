@@ -0,0 +1,42 @@
+package io.vertx.ext.dropwizard.impl;
+
+import io.vertx.core.Context;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The shards of the sharded metrics of a Vert.x instance: each event-loop thread of the instance updates its own
+ * shard and the other threads, e.g worker threads, share a last shard.
+ * <p>
+ * The event-loop threads are numbered in the order they first update a sharded metric of the instance, so the
+ * threads of an event-loop pool get distinct shards whatever the other Vert.x instances of the JVM.
+ */
+class Shards {
+
+  private final int eventLoops;
+  private final AtomicInteger nextEventLoop = new AtomicInteger();
+  // the event-loop number of the thread or -1 for the other threads
+  private final ThreadLocal<Integer> eventLoop = ThreadLocal.withInitial(() -> Context.isOnEventLoopThread() ? nextEventLoop.getAndIncrement() : -1);
+
+  Shards(int eventLoops) {
+    if (eventLoops < 1) {
+      throw new IllegalArgumentException("Invalid number of event-loops " + eventLoops);
+    }
+    this.eventLoops = eventLoops;
+  }
+
+  /**
+   * @return the number of shards, the event-loop shards and the shard of the other threads
+   */
+  int count() {
+    return eventLoops + 1;
+  }
+
+  /**
+   * @return the shard of the current thread
+   */
+  int index() {
+    int index = eventLoop.get();
+    return index < 0 ? eventLoops : index % eventLoops;
+  }
+}
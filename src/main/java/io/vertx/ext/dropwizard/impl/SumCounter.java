@@ -0,0 +1,34 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+
+/**
+ * A gauge of the sum of counters, computed when it is read: updating the parts is enough to update the total.
+ * <p>
+ * It is not a {@link Counter}, so nothing can update it, the reporters see a gauge of the total and the metrics
+ * service reports it as a counter.
+ */
+class SumCounter implements Gauge<Long>, Counting {
+
+  private final Counter[] parts;
+
+  SumCounter(Counter... parts) {
+    this.parts = parts;
+  }
+
+  @Override
+  public Long getValue() {
+    return getCount();
+  }
+
+  @Override
+  public long getCount() {
+    long count = 0;
+    for (Counter part : parts) {
+      count += part.getCount();
+    }
+    return count;
+  }
+}
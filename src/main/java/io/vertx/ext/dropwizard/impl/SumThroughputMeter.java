@@ -0,0 +1,75 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metered;
+import io.vertx.ext.dropwizard.ThroughputMeter;
+
+/**
+ * A gauge of the sum of throughput meters, computed when it is read: marking the parts is enough to update the
+ * total.
+ * <p>
+ * It is not a {@link com.codahale.metrics.Meter}, so nothing can mark it, the reporters see a gauge of the one second
+ * throughput like {@link ThroughputMeter#getValue()} and the metrics service reports it as a throughput meter.
+ */
+class SumThroughputMeter implements Gauge<Long>, Metered {
+
+  private final ThroughputMeter[] parts;
+
+  SumThroughputMeter(ThroughputMeter... parts) {
+    this.parts = parts;
+  }
+
+  @Override
+  public Long getValue() {
+    long value = 0;
+    for (ThroughputMeter part : parts) {
+      value += part.getValue();
+    }
+    return value;
+  }
+
+  @Override
+  public long getCount() {
+    long count = 0;
+    for (ThroughputMeter part : parts) {
+      count += part.getCount();
+    }
+    return count;
+  }
+
+  @Override
+  public double getMeanRate() {
+    double rate = 0;
+    for (ThroughputMeter part : parts) {
+      rate += part.getMeanRate();
+    }
+    return rate;
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    double rate = 0;
+    for (ThroughputMeter part : parts) {
+      rate += part.getOneMinuteRate();
+    }
+    return rate;
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    double rate = 0;
+    for (ThroughputMeter part : parts) {
+      rate += part.getFiveMinuteRate();
+    }
+    return rate;
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    double rate = 0;
+    for (ThroughputMeter part : parts) {
+      rate += part.getFifteenMinuteRate();
+    }
+    return rate;
+  }
+}
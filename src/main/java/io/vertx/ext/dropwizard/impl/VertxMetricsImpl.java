@@ -42,25 +42,33 @@ import static io.vertx.ext.dropwizard.MatchType.REGEX;
  */
 public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
 
-  private final DropwizardMetricsOptions options;
   private Handler<Void> doneHandler;
   private final boolean shutdown;
   private final Map<String, HttpClientReporter> clientReporters = new ConcurrentHashMap<>();
   private final Map<String, DropwizardClientMetrics> clientMetrics = new HashMap<>();
   private final Matcher httpClientMonitoredEndpoints;
+  private final MatchCache matchCache;
 
   public VertxMetricsImpl(MetricRegistry registry, boolean shutdown, VertxOptions options, DropwizardMetricsOptions metricsOptions, String baseName) {
-    super(registry, baseName);
+    super(registry, baseName, metricsOptions, new Shards(options.getEventLoopPoolSize()));
+    RegistryHelper.retain(registry);
+
+    if (metricsOptions.getMatchCacheSize() > 0) {
+      matchCache = new MatchCache(metricsOptions.getMatchCacheSize());
+      gauge(matchCache::hits, "match-cache", "hits");
+      gauge(matchCache::misses, "match-cache", "misses");
+    } else {
+      matchCache = null;
+    }
 
     List<Match> monitoredHttpClientEndpoint = metricsOptions.getMonitoredHttpClientEndpoint();
     Matcher monitoredHttpClientMatcher;
     if (monitoredHttpClientEndpoint != null) {
-      monitoredHttpClientMatcher = new Matcher(monitoredHttpClientEndpoint);
+      monitoredHttpClientMatcher = new Matcher(monitoredHttpClientEndpoint, matchCache);
     } else {
       monitoredHttpClientMatcher = new Matcher(List.of(new Match().setType(REGEX).setValue(".*")));
     }
 
-    this.options = metricsOptions;
     this.shutdown = shutdown;
     this.httpClientMonitoredEndpoints = monitoredHttpClientMatcher;
 
@@ -80,7 +88,7 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
 
   @Override
   public EventBusMetrics createEventBusMetrics() {
-    return new EventBusMetricsImpl(this, nameOf("eventbus"), options);
+    return new EventBusMetricsImpl(this, nameOf("eventbus"), options, matchCache);
   }
 
   @Override
@@ -98,7 +106,7 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
       }
     }
     String baseName = MetricRegistry.name(nameOf("http.servers"), metricsName);
-    return new HttpServerMetricsImpl(registry, baseName, this.options.getMonitoredHttpServerUris(), this.options.getMonitoredHttpServerRoutes());
+    return new HttpServerMetricsImpl(registry, baseName, this.options, shards, matchCache);
   }
 
   @Override
@@ -131,8 +139,8 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
     } else {
       baseName = nameOf("http.clients");
     }
-    HttpClientReporter reporter = clientReporters.computeIfAbsent(baseName, n -> new HttpClientReporter(registry, baseName, null));
-    return new HttpClientMetricsImpl(this, reporter, config, this.options.getMonitoredHttpClientUris(), httpClientMonitoredEndpoints);
+    HttpClientReporter reporter = clientReporters.computeIfAbsent(baseName, n -> new HttpClientReporter(registry, baseName, this.options, shards, null));
+    return new HttpClientMetricsImpl(this, reporter, config, this.options.getMonitoredHttpClientUris(), httpClientMonitoredEndpoints, matchCache);
   }
 
   synchronized void closed(HttpClientMetricsImpl metrics) {
@@ -161,14 +169,14 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
       protocol = "net";
     }
     String baseName = MetricRegistry.name(nameOf(protocol + ".servers"), TcpTransportMetrics.addressName(localAddress));
-    return new TcpTransportMetrics(registry, baseName);
+    return new TcpTransportMetrics(registry, baseName, this.options, shards);
   }
 
   @Override
   public TransportMetrics<?> createQuicEndpointMetrics(QuicEndpointConfig config, String protocol, SocketAddress localAddress) {
     String name = config instanceof QuicClientConfig ? "quic.clients" : "quic.servers";
     String baseName = MetricRegistry.name(nameOf(name), TcpTransportMetrics.addressName(localAddress));
-    return new QuicTransportMetrics(registry, baseName);
+    return new QuicTransportMetrics(registry, baseName, this.options, shards);
   }
 
   @Override
@@ -182,7 +190,7 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
     } else {
      baseName = nameOf(protocol + "net.clients");
     }
-    return new TcpTransportMetrics(registry, baseName);
+    return new TcpTransportMetrics(registry, baseName, this.options, shards);
   }
 
   @Override
@@ -196,7 +204,7 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
       return null;
     }
     String baseName = nameOf("pools", poolType, poolName);
-    return new PoolMetricsImpl(registry, baseName, maxPoolSize);
+    return new PoolMetricsImpl(registry, baseName, this.options, shards, maxPoolSize);
   }
 
   @Override
@@ -207,6 +215,7 @@ public class VertxMetricsImpl extends AbstractMetrics implements VertxMetrics {
         SharedMetricRegistries.remove(options.getRegistryName());
       }
     }
+    RegistryHelper.release(registry);
     List<HttpClientReporter> reporters;
     synchronized (this) {
       reporters = new ArrayList<>(clientReporters.values());
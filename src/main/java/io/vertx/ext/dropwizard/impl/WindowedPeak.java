@@ -0,0 +1,81 @@
+package io.vertx.ext.dropwizard.impl;
+
+import com.codahale.metrics.Gauge;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A gauge of the peak of a concurrency, e.g the open streams, over the last one to two windows: a short burst
+ * remains visible until the next window although the concurrency dropped before the gauge was read.
+ * <p>
+ * The peak of a window is updated with a compare and set, a new window is allocated once per window.
+ */
+class WindowedPeak implements Gauge<Long> {
+
+  // the same window as the hdr reservoirs
+  private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+  private final long origin = System.nanoTime();
+  private final AtomicLong value = new AtomicLong();
+  private final AtomicReference<Interval> current = new AtomicReference<>(new Interval(0, 0));
+  private volatile Interval previous;
+
+  private long epoch() {
+    return (System.nanoTime() - origin) / WINDOW;
+  }
+
+  void inc() {
+    long concurrency = value.incrementAndGet();
+    Interval interval = current.get();
+    long epoch = epoch();
+    while (interval.epoch < epoch) {
+      // the concurrency carried over is the first peak of the window
+      Interval next = new Interval(epoch, concurrency);
+      if (current.compareAndSet(interval, next)) {
+        previous = interval;
+        return;
+      }
+      interval = current.get();
+    }
+    interval.update(concurrency);
+  }
+
+  void dec() {
+    value.decrementAndGet();
+  }
+
+  @Override
+  public Long getValue() {
+    long epoch = epoch();
+    long peak = value.get();
+    Interval interval = current.get();
+    if (interval.epoch >= epoch - 1) {
+      peak = Math.max(peak, interval.peak.get());
+    }
+    interval = previous;
+    if (interval != null && interval.epoch >= epoch - 1) {
+      peak = Math.max(peak, interval.peak.get());
+    }
+    return peak;
+  }
+
+  private static class Interval {
+
+    final long epoch;
+    final AtomicLong peak;
+
+    Interval(long epoch, long peak) {
+      this.epoch = epoch;
+      this.peak = new AtomicLong(peak);
+    }
+
+    void update(long concurrency) {
+      // only contended until the peak settles
+      if (concurrency > peak.get()) {
+        peak.accumulateAndGet(concurrency, Math::max);
+      }
+    }
+  }
+}
@@ -22,4 +22,26 @@ public class InstantThroughputTest {
     Thread.sleep(1000);
     assertEquals(0, throughput.count());
   }
+
+  @Test
+  public void testConcurrentMarks() throws Exception {
+    InstantThroughput throughput = new InstantThroughput();
+    Thread[] threads = new Thread[8];
+    for (int i = 0;i < threads.length;i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0;j < 10000;j++) {
+          throughput.mark();
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(80000, throughput.count());
+    Thread.sleep(1000);
+    assertEquals(80000, throughput.count());
+  }
 }
@@ -18,14 +18,23 @@ package io.vertx.ext.dropwizard.tests;
 
 import io.vertx.core.VertxOptions;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
 import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import org.junit.Test;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.management.ManagementFactory;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -38,7 +47,8 @@ public class MBeansTest extends MetricsTestBase {
     DropwizardMetricsOptions metrics = new DropwizardMetricsOptions()
       .setJmxDomain("testDistinctHttpServerMBeans")
       .setEnabled(true)
-      .setJmxEnabled(true);
+      .setJmxEnabled(true)
+      .setTopRemoteHosts(2);
     return super.getOptions().setMetricsOptions(metrics);
   }
 
@@ -60,4 +70,37 @@ public class MBeansTest extends MetricsTestBase {
     cleanup(server2);
   }
 
+  @Test
+  public void testTopRemoteHostsMBean() throws Exception {
+    int port = 1234;
+    NetServer server = createNetServer().connectHandler(socket -> socket.handler(socket::write));
+    server.listen(port).await(20, TimeUnit.SECONDS);
+    NetClient client = createNetClient();
+    NetSocket socket = client.connect(port, "localhost").await(20, TimeUnit.SECONDS);
+    socket.write("hello").await(20, TimeUnit.SECONDS);
+
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("testDistinctHttpServerMBeans", "name", "\"vertx.net.servers.0.0.0.0:" + port + ".top-remote-hosts\"");
+    assertWaitUntil(() -> {
+      try {
+        return !((Map<?, ?>) mBeanServer.getAttribute(name, "Value")).isEmpty();
+      } catch (Exception e) {
+        return false;
+      }
+    });
+
+    // a remote JMX client receives a serialized copy of the value
+    Object value = mBeanServer.getAttribute(name, "Value");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+      oos.writeObject(value);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(value, ois.readObject());
+    }
+
+    cleanup(client);
+    cleanup(server);
+  }
+
 }
@@ -19,6 +19,7 @@ package io.vertx.ext.dropwizard.tests;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+import io.vertx.ext.dropwizard.Match;
 import io.vertx.ext.dropwizard.MatchType;
 import org.junit.Test;
 
@@ -55,6 +56,41 @@ public class MetricsOptionsTest {
 
     assertNull(options.getConfigPath());
     assertEquals("the_config_file", options.setConfigPath("the_config_file").getConfigPath());
+
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MATCH_CACHE_SIZE, options.getMatchCacheSize());
+    assertEquals(1024, options.setMatchCacheSize(1024).getMatchCacheSize());
+
+    assertFalse(options.isHdrTimersEnabled());
+    assertTrue(options.setHdrTimersEnabled(true).isHdrTimersEnabled());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_HDR_TIMERS_PRECISION, options.getHdrTimersPrecision());
+    assertEquals(3, options.setHdrTimersPrecision(3).getHdrTimersPrecision());
+    assertFalse(options.isShardedMetricsEnabled());
+    assertTrue(options.setShardedMetricsEnabled(true).isShardedMetricsEnabled());
+    assertFalse(options.isLeanEventBusMetricsEnabled());
+    assertTrue(options.setLeanEventBusMetricsEnabled(true).isLeanEventBusMetricsEnabled());
+
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MAX_HTTP_MATCHES, options.getMaxHttpMatches());
+    assertEquals(10, options.setMaxHttpMatches(10).getMaxHttpMatches());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MAX_REMOTE_HOSTS, options.getMaxRemoteHosts());
+    assertEquals(20, options.setMaxRemoteHosts(20).getMaxRemoteHosts());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MAX_IDLE_REMOTE_HOSTS, options.getMaxIdleRemoteHosts());
+    assertEquals(50, options.setMaxIdleRemoteHosts(50).getMaxIdleRemoteHosts());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_TOP_REMOTE_HOSTS, options.getTopRemoteHosts());
+    assertEquals(10, options.setTopRemoteHosts(10).getTopRemoteHosts());
+    assertFalse(options.isHighRateDatagramMetricsEnabled());
+    assertTrue(options.setHighRateDatagramMetricsEnabled(true).isHighRateDatagramMetricsEnabled());
+    assertFalse(options.isReplyMetricsEnabled());
+    assertTrue(options.setReplyMetricsEnabled(true).isReplyMetricsEnabled());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MAX_EVENT_BUS_HANDLERS, options.getMaxEventBusHandlers());
+    assertEquals(30, options.setMaxEventBusHandlers(30).getMaxEventBusHandlers());
+    assertEquals(DropwizardMetricsOptions.DEFAULT_MAX_EVENT_BUS_ADDRESSES, options.getMaxEventBusAddresses());
+    assertEquals(40, options.setMaxEventBusAddresses(40).getMaxEventBusAddresses());
+
+    try {
+      options.setHdrTimersPrecision(0);
+      fail("Should have thrown an exception");
+    } catch (IllegalArgumentException ignore) {
+    }
   }
 
   @Test
@@ -72,12 +108,41 @@ public class MetricsOptionsTest {
     options.setJmxDomain(jmxDomain);
     options.setRegistryName(name);
     options.setConfigPath(configPath);
+    options.setMatchCacheSize(512);
+    options.setHdrTimersEnabled(true);
+    options.setHdrTimersPrecision(1);
+    options.setShardedMetricsEnabled(true);
+    options.setLeanEventBusMetricsEnabled(true);
+    options.setMaxHttpMatches(10);
+    options.setMaxRemoteHosts(20);
+    options.setMaxIdleRemoteHosts(50);
+    options.setTopRemoteHosts(10);
+    options.setHighRateDatagramMetricsEnabled(true);
+    options.setReplyMetricsEnabled(true);
+    options.setMaxEventBusHandlers(30);
+    options.setMaxEventBusAddresses(40);
+    options.addMonitoredEventBusAddress(new Match().setValue("orders"));
     options = new DropwizardMetricsOptions(options);
     assertEquals(metricsEnabled || jmxEnabled, options.isEnabled());
     assertEquals(jmxEnabled, options.isJmxEnabled());
     assertEquals(jmxDomain, options.getJmxDomain());
     assertEquals(name, options.getRegistryName());
     assertEquals(configPath, options.getConfigPath());
+    assertEquals(512, options.getMatchCacheSize());
+    assertTrue(options.isHdrTimersEnabled());
+    assertEquals(1, options.getHdrTimersPrecision());
+    assertTrue(options.isShardedMetricsEnabled());
+    assertTrue(options.isLeanEventBusMetricsEnabled());
+    assertEquals(10, options.getMaxHttpMatches());
+    assertEquals(20, options.getMaxRemoteHosts());
+    assertEquals(50, options.getMaxIdleRemoteHosts());
+    assertEquals(10, options.getTopRemoteHosts());
+    assertTrue(options.isHighRateDatagramMetricsEnabled());
+    assertTrue(options.isReplyMetricsEnabled());
+    assertEquals(30, options.getMaxEventBusHandlers());
+    assertEquals(40, options.getMaxEventBusAddresses());
+    assertEquals(1, options.getMonitoredEventBusAddresses().size());
+    assertEquals("orders", options.getMonitoredEventBusAddresses().get(0).getValue());
   }
 
   @Test
@@ -125,6 +190,9 @@ public class MetricsOptionsTest {
       .add(new JsonObject().put("value", "test.address.1").put("type", "EQUALS"))
       .add(new JsonObject().put("value", "^test.2.*").put("type", "REGEX"));
 
+    JsonArray monitoredEventBusAddresses = new JsonArray()
+      .add(new JsonObject().put("value", "orders").put("type", "EQUALS"));
+
     JsonObject config = new JsonObject()
       .put("registryName", "testRegistry")
       .put("jmxEnabled", true)
@@ -133,8 +201,22 @@ public class MetricsOptionsTest {
       .put("monitoredHttpServerRoutes", monitoredHttpServerRoutes)
       .put("monitoredHttpClientUris", monitoredHttpClientUris)
       .put("monitoredEventBusHandlers", monitoredEventBusHandlers)
+      .put("monitoredEventBusAddresses", monitoredEventBusAddresses)
       .put("configPath", "the_config_file")
-      .put("baseName", "the_base_name");
+      .put("baseName", "the_base_name")
+      .put("matchCacheSize", 256)
+      .put("hdrTimersEnabled", true)
+      .put("hdrTimersPrecision", 3)
+      .put("shardedMetricsEnabled", true)
+      .put("leanEventBusMetricsEnabled", true)
+      .put("maxHttpMatches", 10)
+      .put("maxRemoteHosts", 20)
+      .put("maxIdleRemoteHosts", 50)
+      .put("topRemoteHosts", 10)
+      .put("highRateDatagramMetricsEnabled", true)
+      .put("replyMetricsEnabled", true)
+      .put("maxEventBusHandlers", 30)
+      .put("maxEventBusAddresses", 40);
 
     DropwizardMetricsOptions options = new DropwizardMetricsOptions(config);
 
@@ -143,6 +225,19 @@ public class MetricsOptionsTest {
     assertEquals("testJmxDomain", options.getJmxDomain());
     assertEquals("the_config_file", options.getConfigPath());
     assertEquals("the_base_name", options.getBaseName());
+    assertEquals(256, options.getMatchCacheSize());
+    assertTrue(options.isHdrTimersEnabled());
+    assertEquals(3, options.getHdrTimersPrecision());
+    assertTrue(options.isShardedMetricsEnabled());
+    assertTrue(options.isLeanEventBusMetricsEnabled());
+    assertEquals(10, options.getMaxHttpMatches());
+    assertEquals(20, options.getMaxRemoteHosts());
+    assertEquals(50, options.getMaxIdleRemoteHosts());
+    assertEquals(10, options.getTopRemoteHosts());
+    assertTrue(options.isHighRateDatagramMetricsEnabled());
+    assertTrue(options.isReplyMetricsEnabled());
+    assertEquals(30, options.getMaxEventBusHandlers());
+    assertEquals(40, options.getMaxEventBusAddresses());
 
     assertEquals(2, options.getMonitoredHttpServerUris().size());
     assertEquals("/test/server/1", options.getMonitoredHttpServerUris().get(0).getValue());
@@ -167,6 +262,10 @@ public class MetricsOptionsTest {
     assertEquals(MatchType.EQUALS, options.getMonitoredEventBusHandlers().get(0).getType());
     assertEquals("^test.2.*", options.getMonitoredEventBusHandlers().get(1).getValue());
     assertEquals(MatchType.REGEX, options.getMonitoredEventBusHandlers().get(1).getType());
+
+    assertEquals(1, options.getMonitoredEventBusAddresses().size());
+    assertEquals("orders", options.getMonitoredEventBusAddresses().get(0).getValue());
+    assertEquals(MatchType.EQUALS, options.getMonitoredEventBusAddresses().get(0).getType());
   }
 
   @Test
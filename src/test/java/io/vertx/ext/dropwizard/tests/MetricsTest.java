@@ -83,12 +83,16 @@ public class MetricsTest extends MetricsTestBase {
             new DropwizardMetricsOptions().
                 setEnabled(true).
                 setJmxEnabled(true).
+                setReplyMetricsEnabled(true).
                 addMonitoredEventBusHandler(new Match().setValue("foo")).
                 addMonitoredEventBusHandler(new Match().setValue("juu.*").setType(MatchType.REGEX)).
                 addMonitoredEventBusHandler(new Match().setValue("user:.*").setType(MatchType.REGEX).setAlias("user-handlers")).
+                addMonitoredEventBusAddress(new Match().setValue("orders\\..*").setType(MatchType.REGEX).setAlias("orders")).
                 addMonitoredHttpServerUri(new Match().setValue("/get")).
                 addMonitoredHttpServerUri(new Match().setValue("/p.*").setType(MatchType.REGEX)).
                 addMonitoredHttpServerUri(new Match().setValue("/users/.*").setAlias("users").setType(MatchType.REGEX)).
+                addMonitoredHttpServerUri(new Match().setValue("/orders/{orderId}").setType(MatchType.TEMPLATE)).
+                addMonitoredHttpServerUri(new Match().setValue("/static").setAlias("static").setType(MatchType.PREFIX)).
                 addMonitoredHttpServerRoute(new Match().setValue(".*").setType(MatchType.REGEX)).
                 addMonitoredHttpClientEndpoint(new Match().setValue("localhost:8080")).
                 addMonitoredHttpClientUri(new Match().setValue("/books/.*").setAlias("books").setType(MatchType.REGEX))
@@ -140,7 +144,24 @@ public class MetricsTest extends MetricsTestBase {
 
     assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("bytes-written"), 7500L);
     assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("bytes-read"), 2000L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("bytes-written-rate"), 7500L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("bytes-read-rate"), 2000L);
     assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("exceptions"), 0L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-in-flight"), 0L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("request-processing"), (long) requests);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("response-streaming"), (long) requests);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("request-bytes"), 2000L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("post-request-bytes"), 2000L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("response-bytes"), 7500L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("post-response-bytes"), 7500L);
+    JsonObject requestSize = metricsService.getMetricsSnapshot(server).getJsonObject("request-size");
+    assertCount(requestSize, (long) requests);
+    assertEquals(100, (int) requestSize.getInteger("min"));
+    assertEquals(300, (int) requestSize.getInteger("max"));
+    JsonObject responseSize = metricsService.getMetricsSnapshot(server).getJsonObject("response-size");
+    assertCount(responseSize, (long) requests);
+    assertEquals(500, (int) responseSize.getInteger("min"));
+    assertEquals(1000, (int) responseSize.getInteger("max"));
 
     // Verify http client
     assertCount(() -> metricsService.getMetricsSnapshot(client).getJsonObject("requests"), (long) requests); // requests
@@ -312,6 +333,39 @@ public class MetricsTest extends MetricsTestBase {
     cleanup(server);
   }
 
+  @Test
+  public void testHttpPrefixAndTemplateUriMetrics() throws Exception {
+    int requests = 4;
+    CountDownLatch latch = new CountDownLatch(requests);
+
+    HttpClient client = vertx.createHttpClient(new HttpClientOptions());
+    HttpServer server = vertx.createHttpServer(new HttpServerOptions().setHost("localhost").setPort(8080)).requestHandler(req -> {
+      req.response().end();
+    });
+    server.listen().await(20, TimeUnit.SECONDS);
+
+    for (String uri : Arrays.asList("/orders/1", "/orders/2", "/static/app.js", "/static/css/app.css?v=2")) {
+      client.request(HttpMethod.GET, 8080, "localhost", uri).onSuccess(req -> req.send().onSuccess(resp -> latch.countDown()));
+    }
+
+    assertTrue(latch.await(20, TimeUnit.SECONDS));
+
+    Thread.sleep(100);
+
+    JsonObject metrics = metricsService.getMetricsSnapshot(server);
+    assertCount(metrics.getJsonObject("get-requests./orders/{orderId}"), 2L);
+    assertCount(metrics.getJsonObject("responses-2xx./orders/{orderId}"), 2L);
+    assertCount(metrics.getJsonObject("request-processing./orders/{orderId}"), 2L);
+    assertCount(metrics.getJsonObject("response-streaming./orders/{orderId}"), 2L);
+    assertCount(metrics.getJsonObject("get-requests.static"), 2L);
+    assertCount(metrics.getJsonObject("responses-2xx.static"), 2L);
+    assertNull(metrics.getJsonObject("get-requests./orders/1"));
+    assertNull(metrics.getJsonObject("get-requests./static/app.js"));
+
+    cleanup(client);
+    cleanup(server);
+  }
+
   @Test
   public void testHttpMetricsResponseCode2xx(TestContext should) throws Exception {
     test(should, 200, "responses-2xx");
@@ -622,6 +676,34 @@ public class MetricsTest extends MetricsTestBase {
     cleanup(server);
   }
 
+  @Test
+  public void testHttpServerRequestsInFlightAndReset() throws Exception {
+    HttpClient client = vertx.createHttpClient(new HttpClientOptions());
+    CountDownLatch received = new CountDownLatch(1);
+    HttpServer server = vertx.createHttpServer(new HttpServerOptions().setHost("localhost").setPort(8080)).requestHandler(req -> {
+      // never respond, the request stays in flight until it is reset
+      received.countDown();
+    });
+    server.listen().await(20, TimeUnit.SECONDS);
+
+    HttpClientRequest request = client.request(HttpMethod.GET, 8080, "localhost", "/get").await(20, SECONDS);
+    request.end();
+    assertTrue(received.await(20, TimeUnit.SECONDS));
+
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-in-flight"), 1L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-in-flight./get"), 1L);
+
+    request.reset();
+
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-in-flight"), 0L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-in-flight./get"), 0L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-reset"), 1L);
+    assertCount(() -> metricsService.getMetricsSnapshot(server).getJsonObject("requests-reset-lifetime"), 1L);
+
+    cleanup(client);
+    cleanup(server);
+  }
+
   @Test
   public void testHTTP3Metrics() {
     Assume.assumeFalse(PlatformDependent.isWindows());
@@ -860,6 +942,25 @@ public class MetricsTest extends MetricsTestBase {
     assertCount(metrics.getJsonObject("messages.delivered"), 0L);
   }
 
+  @Test
+  public void testEventBusAddressMetrics() {
+    for (int i = 0; i < 3; i++) {
+      vertx.eventBus().send("orders.created", "Hello");
+    }
+    for (int i = 0; i < 2; i++) {
+      vertx.eventBus().publish("orders.cancelled", "Hello");
+    }
+    vertx.eventBus().send("foo", "Hello");
+
+    JsonObject metrics = metricsService.getMetricsSnapshot(vertx.eventBus());
+    assertCount(metrics.getJsonObject("messages.sent.orders"), 3L);
+    assertCount(metrics.getJsonObject("messages.published.orders"), 2L);
+    assertCount(metrics.getJsonObject("messages.received.orders"), 5L);
+    assertCount(metrics.getJsonObject("messages.sent"), 4L);
+    assertNull(metrics.getJsonObject("messages.sent.foo"));
+    assertNull(metrics.getJsonObject("messages.sent.orders.created"));
+  }
+
   @Test
   public void testEventBusMetricsWithHandler() throws Exception {
     long messages = 13;
@@ -910,6 +1011,9 @@ public class MetricsTest extends MetricsTestBase {
       }
     });
 
+    assertCount(() -> metricsService.getMetricsSnapshot(vertx.eventBus()).getJsonObject("handlers-pending-local.foo"), messages);
+    assertCount(metricsService.getMetricsSnapshot(vertx.eventBus()).getJsonObject("handlers-pending-remote.foo"), 0L);
+
     // Open the gate
     verticle.consumer.resume();
 
@@ -950,6 +1054,8 @@ public class MetricsTest extends MetricsTestBase {
     JsonObject handlerMetric = metrics.getJsonObject("handlers.foo");
     assertNotNull(handlerMetric);
     assertEquals(messages, (int)handlerMetric.getInteger("count"));
+    assertCount(metrics.getJsonObject("handlers-pending-local.foo"), 0L);
+    assertCount(metrics.getJsonObject("handlers-queue-wait.foo"), messages);
 
     // Undeploy
     vertx.undeploy(deploymentID.get()).await(20, TimeUnit.SECONDS);
@@ -958,6 +1064,7 @@ public class MetricsTest extends MetricsTestBase {
     metrics = metricsService.getMetricsSnapshot(vertx.eventBus());
     handlerMetric = metrics.getJsonObject("handlers.foo");
     assertNull(handlerMetric);
+    assertNull(metrics.getJsonObject("handlers-queue-wait.foo"));
   }
 
   @Test
@@ -1070,6 +1177,34 @@ public class MetricsTest extends MetricsTestBase {
     assertCount(metrics.getJsonObject("messages.reply-failures." + ReplyFailure.NO_HANDLERS), 1L);
   }
 
+  @Test
+  public void testEventBusReplyRoundTrip() {
+    vertx.eventBus().consumer("orders.rpc").handler(msg -> msg.reply("pong"));
+
+    for (int i = 0; i < 3; i++) {
+      vertx.eventBus().request("orders.rpc", "ping").await(20, TimeUnit.SECONDS);
+    }
+
+    assertCount(() -> metricsService.getMetricsSnapshot(vertx.eventBus()).getJsonObject("messages.reply-round-trip"), 3L);
+    assertCount(() -> metricsService.getMetricsSnapshot(vertx.eventBus()).getJsonObject("messages.reply-round-trip.orders"), 3L);
+    assertCount(() -> metricsService.getMetricsSnapshot(vertx.eventBus()).getJsonObject("messages.reply-address-lifetime"), 3L);
+  }
+
+  @Test
+  public void testEventBusAddressReplyFailures() {
+    try {
+      vertx.eventBus().request("orders.unknown", "bar", new DeliveryOptions().setSendTimeout(300)).await(20, TimeUnit.SECONDS);
+      fail();
+    } catch (Exception ignore) {
+
+    }
+
+    JsonObject metrics = metricsService.getMetricsSnapshot(vertx.eventBus());
+    assertCount(metrics.getJsonObject("messages.reply-failures.orders"), 1L);
+    assertCount(metrics.getJsonObject("messages.reply-failures." + ReplyFailure.NO_HANDLERS), 1L);
+    assertCount(metrics.getJsonObject("messages.reply-failures." + ReplyFailure.TIMEOUT), 0L);
+  }
+
 /*
   @Test
   public void testEventBusByteMetrics() {
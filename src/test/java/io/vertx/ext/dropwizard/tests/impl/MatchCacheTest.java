@@ -0,0 +1,116 @@
+package io.vertx.ext.dropwizard.tests.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.spi.metrics.EventBusMetrics;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+import io.vertx.ext.dropwizard.Match;
+import io.vertx.ext.dropwizard.MatchType;
+import io.vertx.ext.dropwizard.impl.VertxMetricsImpl;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MatchCacheTest {
+
+  private final MetricRegistry registry = new MetricRegistry();
+  private VertxMetricsImpl vmi;
+
+  private VertxMetricsImpl vertxMetrics(DropwizardMetricsOptions options) {
+    vmi = new VertxMetricsImpl(registry, false, new VertxOptions(), options, "baseName");
+    return vmi;
+  }
+
+  @After
+  public void after() {
+    if (vmi != null) {
+      vmi.close();
+    }
+  }
+
+  private long hits() {
+    return (Long) registry.getGauges().get("baseName.match-cache.hits").getValue();
+  }
+
+  private long misses() {
+    return (Long) registry.getGauges().get("baseName.match-cache.misses").getValue();
+  }
+
+  private static void registerHandler(EventBusMetrics<Object> metrics, String address) {
+    metrics.handlerUnregistered(metrics.handlerRegistered(address));
+  }
+
+  @Test
+  public void testSharedCache() {
+    // the monitored endpoints and the monitored handlers share the cache
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMatchCacheSize(64)
+      .addMonitoredHttpClientEndpoint(new Match().setValue("users:.*").setType(MatchType.REGEX))
+      .addMonitoredEventBusHandler(new Match().setValue(".*:80").setType(MatchType.REGEX).setAlias("handlers")));
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+
+    for (int i = 0;i < 2;i++) {
+      assertNotNull(vmi.createPoolMetrics("http", "users:80", 1));
+      assertNull(vmi.createPoolMetrics("http", "orders:80", 1));
+      registerHandler(metrics, "users:80");
+      registerHandler(metrics, "orders:80");
+    }
+    // the results of each matcher are cached separately
+    assertEquals(4, misses());
+    assertEquals(4, hits());
+  }
+
+  @Test
+  public void testCacheNoMatch() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMatchCacheSize(64)
+      .addMonitoredHttpClientEndpoint(new Match().setValue("users:.*").setType(MatchType.REGEX)));
+    for (int i = 0;i < 10;i++) {
+      assertNull(vmi.createPoolMetrics("http", "orders:80", 1));
+    }
+    assertEquals(1, misses());
+    assertEquals(9, hits());
+  }
+
+  @Test
+  public void testEviction() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMatchCacheSize(4)
+      .addMonitoredEventBusHandler(new Match().setValue(".*").setType(MatchType.REGEX)));
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    for (int i = 0;i < 100;i++) {
+      registerHandler(metrics, "address-" + i);
+    }
+    assertEquals(100, misses());
+    for (int i = 0;i < 100;i++) {
+      registerHandler(metrics, "address-" + i);
+    }
+    // at most the 4 entries of the cache are still cached
+    assertTrue(hits() <= 4);
+    assertEquals(200, hits() + misses());
+  }
+
+  @Test
+  public void testGauges() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMatchCacheSize(64)
+      .addMonitoredHttpClientEndpoint(new Match().setValue("monitored:.*").setType(MatchType.REGEX)));
+
+    for (int i = 0;i < 3;i++) {
+      assertNotNull(vmi.createPoolMetrics("http", "monitored:80", 1));
+      assertNull(vmi.createPoolMetrics("http", "other:80", 1));
+    }
+    assertEquals(4L, hits());
+    assertEquals(2L, misses());
+  }
+
+  @Test
+  public void testCacheDisabled() {
+    vertxMetrics(new DropwizardMetricsOptions());
+    assertNull(registry.getGauges().get("baseName.match-cache.hits"));
+  }
+}
@@ -0,0 +1,122 @@
+package io.vertx.ext.dropwizard.tests.impl;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.metrics.TransportMetrics;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+import io.vertx.ext.dropwizard.ThroughputMeter;
+import io.vertx.ext.dropwizard.impl.VertxMetricsImpl;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RegistryHelperTest {
+
+  private static final String BYTES_READ_RATE = "baseName.net.servers.localhost:8080.bytes-read-rate";
+  private static final SocketAddress LOCAL = SocketAddress.inetSocketAddress(8080, "localhost");
+  private static final SocketAddress REMOTE = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+
+  /**
+   * A registry tracking the listeners attached to it.
+   */
+  private static class ListenedRegistry extends MetricRegistry {
+
+    final Set<MetricRegistryListener> listeners = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Override
+    public void addListener(MetricRegistryListener listener) {
+      listeners.add(listener);
+      super.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(MetricRegistryListener listener) {
+      listeners.remove(listener);
+      super.removeListener(listener);
+    }
+  }
+
+  private static void bytesRead(VertxMetricsImpl vmi, long bytes) {
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", LOCAL);
+    metrics.bytesRead(null, REMOTE, bytes);
+  }
+
+  @Test
+  public void testIndexFollowsRegistry() {
+    MetricRegistry registry = new MetricRegistry();
+    ThroughputMeter existing = registry.register(BYTES_READ_RATE, new ThroughputMeter());
+    VertxMetricsImpl vmi = new VertxMetricsImpl(registry, false, new VertxOptions(), new DropwizardMetricsOptions(), "baseName");
+    try {
+      // the metrics registered before the index are found
+      bytesRead(vmi, 10);
+      assertEquals(10, existing.getCount());
+
+      // the metrics removed from the registry are registered again
+      registry.remove(BYTES_READ_RATE);
+      bytesRead(vmi, 5);
+      Meter added = registry.getMeters().get(BYTES_READ_RATE);
+      assertNotSame(existing, added);
+      assertEquals(5, added.getCount());
+      assertEquals(10, existing.getCount());
+
+      bytesRead(vmi, 1);
+      assertSame(added, registry.getMeters().get(BYTES_READ_RATE));
+      assertEquals(6, added.getCount());
+    } finally {
+      vmi.close();
+    }
+  }
+
+  @Test
+  public void testDifferentType() {
+    MetricRegistry registry = new MetricRegistry();
+    Meter meter = registry.meter(BYTES_READ_RATE);
+    VertxMetricsImpl vmi = new VertxMetricsImpl(registry, false, new VertxOptions(), new DropwizardMetricsOptions(), "baseName");
+    try {
+      // the name used by another type of metric is left alone
+      bytesRead(vmi, 10);
+      assertSame(meter, registry.getMeters().get(BYTES_READ_RATE));
+      assertEquals(0, meter.getCount());
+    } finally {
+      vmi.close();
+    }
+  }
+
+  @Test
+  public void testDetachSharedRegistry() {
+    ListenedRegistry registry = new ListenedRegistry();
+    VertxMetricsImpl first = new VertxMetricsImpl(registry, false, new VertxOptions(), new DropwizardMetricsOptions(), "first");
+    VertxMetricsImpl second = new VertxMetricsImpl(registry, false, new VertxOptions(), new DropwizardMetricsOptions(), "second");
+    // a single index for the registry
+    assertEquals(1, registry.listeners.size());
+
+    first.close();
+    assertEquals(1, registry.listeners.size());
+
+    second.close();
+    // the registry outlives the metrics, it no longer notifies the index
+    assertEquals(0, registry.listeners.size());
+  }
+
+  @Test
+  public void testMetricsCreatedAfterClose() {
+    ListenedRegistry registry = new ListenedRegistry();
+    VertxMetricsImpl vmi = new VertxMetricsImpl(registry, false, new VertxOptions(), new DropwizardMetricsOptions(), "baseName");
+    vmi.close();
+
+    // the metrics still work without attaching an index nobody would detach
+    bytesRead(vmi, 10);
+    bytesRead(vmi, 5);
+    assertEquals(0, registry.listeners.size());
+    assertEquals(15, registry.getMeters().get(BYTES_READ_RATE).getCount());
+  }
+}
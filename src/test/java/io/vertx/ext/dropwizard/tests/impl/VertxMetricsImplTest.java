@@ -1,25 +1,731 @@
 package io.vertx.ext.dropwizard.tests.impl;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerConfig;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.QuicServerConfig;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.metrics.DatagramSocketMetrics;
+import io.vertx.core.spi.metrics.EventBusMetrics;
+import io.vertx.core.spi.metrics.HttpServerMetrics;
 import io.vertx.core.spi.metrics.PoolMetrics;
+import io.vertx.core.spi.metrics.TransportMetrics;
+import io.vertx.core.spi.observability.HttpRequest;
+import io.vertx.core.spi.observability.HttpResponse;
 import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+import io.vertx.ext.dropwizard.Match;
+import io.vertx.ext.dropwizard.MatchType;
 import io.vertx.ext.dropwizard.impl.VertxMetricsImpl;
+import org.junit.After;
 import org.junit.Test;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Siarhei.Bahdanchuk Date: 29.07.2025
  */
 public class VertxMetricsImplTest {
 
+  private final MetricRegistry registry = new MetricRegistry();
+  private final List<VertxMetricsImpl> created = new ArrayList<>();
+
+  /**
+   * @return metrics reporting to the registry of the test under {@code baseName}, closed after the test
+   */
+  private VertxMetricsImpl vertxMetrics(DropwizardMetricsOptions options) {
+    VertxMetricsImpl vmi = new VertxMetricsImpl(registry, false, new VertxOptions(), options, "baseName");
+    created.add(vmi);
+    return vmi;
+  }
+
+  @After
+  public void after() {
+    created.forEach(VertxMetricsImpl::close);
+  }
+
   @Test
   public void testCreatePoolMetricsShouldNotThrowNPE() {
-    VertxMetricsImpl vmi = new VertxMetricsImpl(new MetricRegistry(), false,
-      new VertxOptions(), new DropwizardMetricsOptions(), "baseName");
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
 
     PoolMetrics actual = vmi.createPoolMetrics("http", "poolName", 1);
     assertNotNull(actual);
   }
+
+  @Test
+  public void testHdrTimers() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions().setHdrTimersEnabled(true));
+
+    PoolMetrics<Object, Object> metrics = (PoolMetrics<Object, Object>) vmi.createPoolMetrics("worker", "poolName", 1);
+    for (int i = 0;i < 10;i++) {
+      metrics.end(metrics.begin());
+    }
+
+    Timer usage = registry.getTimers().get("baseName.pools.worker.poolName.usage");
+    assertEquals(10, usage.getCount());
+    Snapshot snapshot = usage.getSnapshot();
+    assertEquals(10, snapshot.size());
+    assertEquals(10, snapshot.getValues().length);
+    assertTrue(snapshot.getMin() <= snapshot.getMedian());
+    assertTrue(snapshot.getMedian() <= snapshot.getMax());
+
+    JsonObject json = vmi.metrics("baseName.pools.worker.poolName").getJsonObject("baseName.pools.worker.poolName.usage");
+    assertEquals("timer", json.getString("type"));
+    assertEquals(10L, (long) json.getLong("count"));
+    assertNotNull(json.getDouble("99%"));
+  }
+
+  @Test
+  public void testPoolMetricsSamples() throws Exception {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    PoolMetrics<Object, Object> metrics = (PoolMetrics<Object, Object>) vmi.createPoolMetrics("worker", "poolName", 1);
+    ExecutorService submitter = Executors.newSingleThreadExecutor();
+    try {
+      Set<Object> samples = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int round = 0;round < 3;round++) {
+        Object[] queued = submitter.submit(() -> {
+          Object[] enqueued = new Object[10];
+          for (int i = 0;i < enqueued.length;i++) {
+            enqueued[i] = metrics.enqueue();
+          }
+          return enqueued;
+        }).get();
+        for (Object queueMetric : queued) {
+          // the worker hands the sample back to the submitter
+          metrics.dequeue(queueMetric);
+          Object usageMetric = metrics.begin();
+          metrics.end(usageMetric);
+          // and reuses its own sample
+          assertSame(usageMetric, metrics.begin());
+          metrics.end(usageMetric);
+        }
+        samples.addAll(Arrays.asList(queued));
+      }
+      // the submitter allocated the samples of its first round only
+      assertEquals(10, samples.size());
+    } finally {
+      submitter.shutdown();
+    }
+
+    assertEquals(30, registry.getTimers().get("baseName.pools.worker.poolName.queue-delay").getCount());
+    assertEquals(60, registry.getTimers().get("baseName.pools.worker.poolName.usage").getCount());
+    assertEquals(0, registry.getCounters().get("baseName.pools.worker.poolName.queue-size").getCount());
+    assertEquals(0, registry.getCounters().get("baseName.pools.worker.poolName.in-use").getCount());
+  }
+
+  @Test
+  public void testShardedMetrics() throws Exception {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions().setShardedMetricsEnabled(true).setHdrTimersEnabled(true));
+
+    PoolMetrics<Object, Object> metrics = (PoolMetrics<Object, Object>) vmi.createPoolMetrics("worker", "poolName", 4);
+    Thread[] threads = new Thread[4];
+    for (int i = 0;i < threads.length;i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0;j < 100;j++) {
+          metrics.end(metrics.begin());
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Timer usage = registry.getTimers().get("baseName.pools.worker.poolName.usage");
+    assertEquals(400, usage.getCount());
+    assertEquals(400, usage.getSnapshot().size());
+  }
+
+  @Test
+  public void testShardedMetricsReadBeforeUpdate() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions().setShardedMetricsEnabled(true));
+
+    PoolMetrics<Object, Object> metrics = (PoolMetrics<Object, Object>) vmi.createPoolMetrics("worker", "poolName", 1);
+    Timer usage = registry.getTimers().get("baseName.pools.worker.poolName.usage");
+    // the reporter reads an empty snapshot
+    Snapshot snapshot = usage.getSnapshot();
+    assertEquals(0, snapshot.size());
+    assertEquals(0, snapshot.getMax());
+
+    metrics.end(metrics.begin());
+    assertEquals(1, usage.getSnapshot().size());
+  }
+
+  @Test
+  public void testEventBusHandlersCardinalityLimit() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusHandler(new Match().setValue(".*").setType(MatchType.REGEX))
+      .setMaxEventBusHandlers(2));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    Object a = metrics.handlerRegistered("a");
+    metrics.handlerRegistered("b");
+    metrics.handlerRegistered("c");
+    metrics.handlerRegistered("d");
+
+    assertTrue(registry.getCounters().containsKey("baseName.eventbus.handlers.a"));
+    assertTrue(registry.getCounters().containsKey("baseName.eventbus.handlers.b"));
+    assertFalse(registry.getCounters().containsKey("baseName.eventbus.handlers.c"));
+    assertTrue(registry.getCounters().containsKey("baseName.eventbus.handlers.__overflow__"));
+    assertEquals(2, registry.getCounters().get("baseName.eventbus.handlers.dropped-names").getCount());
+
+    metrics.handlerUnregistered(a);
+    metrics.handlerRegistered("e");
+    assertFalse(registry.getCounters().containsKey("baseName.eventbus.handlers.a"));
+    assertTrue(registry.getCounters().containsKey("baseName.eventbus.handlers.e"));
+  }
+
+  @Test
+  public void testLeanEventBusMetricsSharedRegistry() {
+    VertxMetricsImpl lean = vertxMetrics(new DropwizardMetricsOptions()
+      .setLeanEventBusMetricsEnabled(true));
+    VertxMetricsImpl notLean = vertxMetrics(new DropwizardMetricsOptions());
+
+    lean.createEventBusMetrics();
+    try {
+      notLean.createEventBusMetrics();
+      fail("Should have thrown an exception");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().contains("baseName.eventbus.messages.pending"));
+    }
+  }
+
+  @Test
+  public void testNotLeanEventBusMetricsSharedRegistry() {
+    VertxMetricsImpl notLean = vertxMetrics(new DropwizardMetricsOptions());
+    VertxMetricsImpl lean = vertxMetrics(new DropwizardMetricsOptions()
+      .setLeanEventBusMetricsEnabled(true));
+
+    notLean.createEventBusMetrics();
+    try {
+      lean.createEventBusMetrics();
+      fail("Should have thrown an exception");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().contains("baseName.eventbus.messages.pending"));
+    }
+  }
+
+  @Test
+  public void testReplyMetrics() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    // no state per request
+    assertSame(metrics.handlerRegistered("__vertx.reply.1"), metrics.handlerRegistered("__vertx.reply.2"));
+    assertFalse(registry.getTimers().containsKey("baseName.eventbus.messages.reply-round-trip"));
+  }
+
+  @Test
+  public void testReplyMetricsMonitoredAddress() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusAddress(new Match().setValue("orders")));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    Object reply = metrics.handlerRegistered("__vertx.reply.1");
+    metrics.messageSent("orders", false, true, false);
+    metrics.messageDelivered(reply, true);
+    metrics.handlerUnregistered(reply);
+
+    // a reply registered and never sent is not taken by the next send
+    Object unsent = metrics.handlerRegistered("__vertx.reply.2");
+    metrics.handlerUnregistered(unsent);
+    metrics.messageSent("orders", false, true, false);
+    metrics.messageDelivered(unsent, true);
+
+    assertEquals(1, registry.getTimers().get("baseName.eventbus.messages.reply-round-trip.orders").getCount());
+    assertFalse(registry.getTimers().containsKey("baseName.eventbus.messages.reply-round-trip"));
+    assertFalse(registry.getTimers().containsKey("baseName.eventbus.messages.reply-address-lifetime"));
+  }
+
+  @Test
+  public void testEventBusAddressesCardinalityLimit() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusAddress(new Match().setValue("orders\\..*").setType(MatchType.REGEX))
+      .setMaxEventBusAddresses(2));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    for (int i = 0;i < 3;i++) {
+      metrics.messageSent("orders.a", false, true, false);
+      metrics.messageSent("orders.b", false, true, false);
+      metrics.messageSent("orders.c", false, true, false);
+      metrics.messageSent("orders.d", false, true, false);
+    }
+
+    assertEquals(3, registry.getMeters().get("baseName.eventbus.messages.sent.orders.a").getCount());
+    assertEquals(3, registry.getMeters().get("baseName.eventbus.messages.sent.orders.b").getCount());
+    assertFalse(registry.getMeters().containsKey("baseName.eventbus.messages.sent.orders.c"));
+    assertEquals(6, registry.getMeters().get("baseName.eventbus.messages.sent.__overflow__").getCount());
+    // the distinct names folded
+    assertEquals(2, registry.getCounters().get("baseName.eventbus.addresses.dropped-names").getCount());
+  }
+
+  @Test
+  public void testHttpMatchesCardinalityLimit() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredHttpServerUri(new Match().setValue("/.*").setType(MatchType.REGEX))
+      .setMaxHttpMatches(2));
+
+    HttpServerMetrics<Object, Object> metrics = (HttpServerMetrics<Object, Object>) vmi.createHttpServerMetrics(new HttpServerConfig(), SocketAddress.inetSocketAddress(8080, "localhost"), null);
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    for (int i = 0;i < 3;i++) {
+      metrics.requestBegin(remote, request("/a"));
+      metrics.requestBegin(remote, request("/b"));
+      metrics.requestBegin(remote, request("/c"));
+      metrics.requestBegin(remote, request("/d"));
+    }
+
+    String name = "baseName.http.servers.localhost:8080.";
+    assertEquals(3, registry.getCounters().get(name + "requests-in-flight./a").getCount());
+    assertEquals(3, registry.getCounters().get(name + "requests-in-flight./b").getCount());
+    assertFalse(registry.getCounters().containsKey(name + "requests-in-flight./c"));
+    assertEquals(6, registry.getCounters().get(name + "requests-in-flight.__overflow__").getCount());
+    // the distinct names folded
+    assertEquals(2, registry.getCounters().get(name + "matches.dropped-names").getCount());
+  }
+
+  @Test
+  public void testHttpRouteInFlight() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredHttpServerRoute(new Match().setValue("/a.*").setType(MatchType.REGEX)));
+
+    HttpServerMetrics<Object, Object> metrics = (HttpServerMetrics<Object, Object>) vmi.createHttpServerMetrics(new HttpServerConfig(), SocketAddress.inetSocketAddress(8080, "localhost"), null);
+    String name = "baseName.http.servers.localhost:8080.";
+    Object request = metrics.requestBegin(SocketAddress.inetSocketAddress(1234, "10.0.0.1"), request("/a"));
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight").getCount());
+    // not routed yet
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight.__unrouted__").getCount());
+
+    // counted in flight of its route while the handlers run
+    metrics.requestRouted(request, "/a");
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight.__unrouted__").getCount());
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight./a").getCount());
+    metrics.requestRouted(request, "/b");
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight./a").getCount());
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight./a>/b").getCount());
+
+    metrics.responseBegin(request, response(200));
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight./a>/b").getCount());
+    metrics.responseEnd(request, response(200), 0);
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight./a>/b").getCount());
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight").getCount());
+    assertEquals(1, registry.getTimers().get(name + "get-requests./a>/b").getCount());
+  }
+
+  @Test
+  public void testHttpRouteInFlightNotMatched() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredHttpServerRoute(new Match().setValue("/a")));
+
+    HttpServerMetrics<Object, Object> metrics = (HttpServerMetrics<Object, Object>) vmi.createHttpServerMetrics(new HttpServerConfig(), SocketAddress.inetSocketAddress(8080, "localhost"), null);
+    String name = "baseName.http.servers.localhost:8080.";
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    Object routed = metrics.requestBegin(remote, request("/a"));
+    metrics.requestRouted(routed, "/a");
+    Object other = metrics.requestBegin(remote, request("/b"));
+    metrics.requestRouted(other, "/b");
+    // a request routed to a route not monitored leaves the unrouted bucket
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight.__unrouted__").getCount());
+    assertEquals(1, registry.getCounters().get(name + "requests-in-flight./a").getCount());
+    assertEquals(2, registry.getCounters().get(name + "requests-in-flight").getCount());
+
+    metrics.requestReset(routed);
+    metrics.responseEnd(other, response(200), 0);
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight./a").getCount());
+    assertEquals(0, registry.getCounters().get(name + "requests-in-flight").getCount());
+  }
+
+  private static HttpRequest request(String uri) {
+    return proxy(HttpRequest.class, method -> {
+      switch (method) {
+        case "method":
+          return HttpMethod.GET;
+        case "uri":
+          return uri;
+        default:
+          return null;
+      }
+    });
+  }
+
+  private static HttpResponse response(int statusCode) {
+    return proxy(HttpResponse.class, method -> "statusCode".equals(method) ? statusCode : null);
+  }
+
+  private static <T> T proxy(Class<T> type, Function<String, Object> answers) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> answers.apply(method.getName())));
+  }
+
+  @Test
+  public void testEventBusHandlersConcurrentRegistrations() throws Exception {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusHandler(new Match().setValue(".*").setType(MatchType.REGEX)));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    Object held = metrics.handlerRegistered("held");
+    Thread[] threads = new Thread[8];
+    int cycles = 10_000;
+    CyclicBarrier barrier = new CyclicBarrier(threads.length);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int i = 0;i < threads.length;i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          barrier.await();
+          for (int j = 0;j < cycles;j++) {
+            Object churned = metrics.handlerRegistered("churned");
+            Object other = metrics.handlerRegistered("held");
+            metrics.scheduleMessage(other, true);
+            metrics.messageDelivered(other, true);
+            metrics.handlerUnregistered(other);
+            metrics.handlerUnregistered(churned);
+          }
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure.get());
+
+    // the counts of a registered address are never lost
+    assertEquals(threads.length * cycles, registry.getCounters().get("baseName.eventbus.handlers.held").getCount());
+    assertEquals(threads.length * cycles, registry.getTimers().get("baseName.eventbus.handlers-queue-wait.held").getCount());
+    assertEquals(0, registry.getCounters().get("baseName.eventbus.handlers-pending-local.held").getCount());
+    assertEquals(1, registry.getCounters().get("baseName.eventbus.handlers").getCount());
+    assertFalse(registry.getCounters().containsKey("baseName.eventbus.handlers.churned"));
+    assertFalse(registry.getTimers().containsKey("baseName.eventbus.handlers-queue-wait.churned"));
+
+    metrics.handlerUnregistered(held);
+    assertFalse(registry.getCounters().containsKey("baseName.eventbus.handlers.held"));
+  }
+
+  @Test
+  public void testEventBusMessageSizes() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusAddress(new Match().setValue("orders")));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    metrics.messageWritten("orders", 100);
+    metrics.messageWritten("orders", 10_000);
+    metrics.messageWritten("prices", 1_000);
+    metrics.messageRead("orders", 500);
+
+    Snapshot written = registry.getHistograms().get("baseName.eventbus.messages.written-size").getSnapshot();
+    assertEquals(3, written.size());
+    assertEquals(100, written.getMin());
+    assertEquals(10_000, written.getMax());
+    assertEquals(2, registry.getHistograms().get("baseName.eventbus.messages.written-size.orders").getCount());
+    assertEquals(1, registry.getHistograms().get("baseName.eventbus.messages.read-size").getCount());
+    assertEquals(1, registry.getHistograms().get("baseName.eventbus.messages.read-size.orders").getCount());
+    assertFalse(registry.getHistograms().containsKey("baseName.eventbus.messages.written-size.prices"));
+
+    JsonObject json = vmi.metrics("baseName.eventbus.messages.written-size").getJsonObject("baseName.eventbus.messages.written-size");
+    assertEquals("histogram", json.getString("type"));
+    assertEquals(3L, (long) json.getLong("count"));
+  }
+
+  @Test
+  public void testEventBusAddressClassification() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .addMonitoredEventBusAddress(new Match().setValue("orders\\..*").setType(MatchType.REGEX).setAlias("orders")));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    // more addresses than classified once
+    for (int i = 0;i < 10_000;i++) {
+      metrics.messageSent("orders." + i, false, true, false);
+      metrics.messageSent("orders." + i, false, true, false);
+      metrics.messageSent("prices." + i, false, true, false);
+      metrics.messageSent("__vertx.reply." + i, false, true, false);
+    }
+
+    assertEquals(20_000, registry.getMeters().get("baseName.eventbus.messages.sent.orders").getCount());
+    assertEquals(30_000, registry.getMeters().get("baseName.eventbus.messages.sent").getCount());
+    assertFalse(registry.getMeters().containsKey("baseName.eventbus.messages.sent.prices.0"));
+  }
+
+  @Test
+  public void testRemoteHostConnections() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.open-connections.";
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    Object first = metrics.connected(remote, null);
+    Object second = metrics.connected(remote, null);
+    assertEquals(2, registry.getCounters().get(name + "10.0.0.1").getCount());
+    metrics.disconnected(first, remote);
+    assertEquals(1, registry.getCounters().get(name + "10.0.0.1").getCount());
+    metrics.disconnected(second, remote);
+    assertFalse(registry.getCounters().containsKey(name + "10.0.0.1"));
+    metrics.connected(remote, null);
+    assertEquals(1, registry.getCounters().get(name + "10.0.0.1").getCount());
+  }
+
+  @Test
+  public void testRemoteHostConnectionsSharedRegistry() {
+    VertxMetricsImpl vmi1 = vertxMetrics(new DropwizardMetricsOptions());
+    VertxMetricsImpl vmi2 = vertxMetrics(new DropwizardMetricsOptions());
+
+    TransportMetrics<Object> metrics1 = (TransportMetrics<Object>) vmi1.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    TransportMetrics<Object> metrics2 = (TransportMetrics<Object>) vmi2.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.open-connections.10.0.0.1";
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    Object first = metrics1.connected(remote, null);
+    Object second = metrics2.connected(remote, null);
+    // the first transport owns the counter
+    assertEquals(1, registry.getCounters().get(name).getCount());
+    metrics1.disconnected(first, remote);
+    assertFalse(registry.getCounters().containsKey(name));
+    metrics2.disconnected(second, remote);
+    assertFalse(registry.getCounters().containsKey(name));
+
+    // the second transport registers the counter once the name is free
+    second = metrics2.connected(remote, null);
+    assertEquals(1, registry.getCounters().get(name).getCount());
+    first = metrics1.connected(remote, null);
+    assertEquals(1, registry.getCounters().get(name).getCount());
+    metrics1.disconnected(first, remote);
+    assertEquals(1, registry.getCounters().get(name).getCount());
+    metrics2.disconnected(second, remote);
+    assertFalse(registry.getCounters().containsKey(name));
+  }
+
+  @Test
+  public void testIdleRemoteHostConnections() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMaxIdleRemoteHosts(64));
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.open-connections.";
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    Object first = metrics.connected(remote, null);
+    Object second = metrics.connected(remote, null);
+    assertEquals(2, registry.getCounters().get(name + "10.0.0.1").getCount());
+    metrics.disconnected(first, remote);
+    metrics.disconnected(second, remote);
+    // idle hosts are kept for a while
+    assertEquals(0, registry.getCounters().get(name + "10.0.0.1").getCount());
+    metrics.disconnected(metrics.connected(remote, null), remote);
+
+    for (int i = 0;i < 100;i++) {
+      SocketAddress other = SocketAddress.inetSocketAddress(1234, "10.0.1." + i);
+      metrics.disconnected(metrics.connected(other, null), other);
+    }
+    assertFalse(registry.getCounters().containsKey(name + "10.0.0.1"));
+    assertTrue(registry.getCounters().keySet().stream().filter(key -> key.startsWith(name)).count() <= 65);
+    // the idle hosts can be updated through the registry
+    Counter counter = registry.getCounters().get(registry.getCounters().keySet().stream().filter(key -> key.startsWith(name)).findFirst().get());
+    counter.inc();
+    assertEquals(1, counter.getCount());
+    counter.dec();
+    assertEquals(0, counter.getCount());
+  }
+
+  @Test
+  public void testConnectionMetrics() throws Exception {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.";
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    Object connection = metrics.connected(remote, null);
+    metrics.bytesRead(connection, remote, 1000);
+    metrics.bytesWritten(connection, remote, 500);
+    Thread.sleep(10);
+    metrics.disconnected(connection, remote);
+    metrics.disconnected(metrics.connected(remote, null), remote);
+
+    Snapshot bytes = registry.getHistograms().get(name + "connection-bytes").getSnapshot();
+    assertEquals(2, bytes.size());
+    assertEquals(0, bytes.getMin());
+    assertEquals(1500, bytes.getMax());
+    Snapshot throughput = registry.getHistograms().get(name + "connection-throughput").getSnapshot();
+    assertTrue(throughput.getMax() > 0);
+    // no more than the bytes in 10ms
+    assertTrue(throughput.getMax() <= 150_000);
+    assertEquals(2, registry.getTimers().get(name + "connections").getCount());
+  }
+
+  @Test
+  public void testQuicStreamMetrics() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createQuicEndpointMetrics(new QuicServerConfig(), "quic", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.quic.servers.localhost:8080.";
+    Object connection = metrics.connected(SocketAddress.inetSocketAddress(1234, "10.0.0.1"), null);
+    // a control stream opened for the whole connection and requests one after the other
+    metrics.streamOpened(connection);
+    for (int i = 0;i < 3;i++) {
+      metrics.streamOpened(connection);
+      metrics.streamClosed(connection);
+    }
+    metrics.streamOpened(connection);
+    metrics.streamOpened(connection);
+    metrics.streamClosed(connection);
+    metrics.streamClosed(connection);
+    metrics.streamClosed(connection);
+    metrics.disconnected(connection, null);
+
+    // the streams are not identified, their durations cannot be measured
+    assertFalse(registry.getTimers().containsKey(name + "stream-duration"));
+    assertEquals(6, registry.getHistograms().get(name + "streams-per-connection").getSnapshot().getMax());
+    assertEquals(3L, registry.getGauges().get(name + "open-streams-peak").getValue());
+    assertEquals(0, registry.getCounters().get(name + "open-streams").getCount());
+  }
+
+  @Test
+  public void testHighRateDatagramMetrics() {
+    DropwizardMetricsOptions options = new DropwizardMetricsOptions().setHighRateDatagramMetricsEnabled(true).setTopRemoteHosts(1);
+    VertxMetricsImpl vmi = vertxMetrics(options);
+
+    DatagramSocketMetrics metrics = vmi.createDatagramSocketMetrics(new DatagramSocketOptions());
+    metrics.listening("localhost", SocketAddress.inetSocketAddress(1236, "localhost"));
+    SocketAddress noisy = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    SocketAddress quiet = SocketAddress.inetSocketAddress(1234, "10.0.0.2");
+    for (int i = 0;i < 100;i++) {
+      metrics.bytesRead(null, noisy, 1000);
+      metrics.bytesWritten(null, noisy, 100);
+    }
+    metrics.bytesRead(null, quiet, 10);
+
+    Snapshot sizes = registry.getHistograms().get("baseName.datagram.localhost:1236.bytes-read").getSnapshot();
+    assertEquals(101, sizes.size());
+    assertEquals(10, sizes.getMin());
+    assertEquals(1000, sizes.getMax());
+    assertEquals(101, registry.getMeters().get("baseName.datagram.localhost:1236.packets-read-rate").getCount());
+    assertEquals(100_010, registry.getMeters().get("baseName.datagram.localhost:1236.bytes-read-rate").getCount());
+    assertEquals(100, registry.getMeters().get("baseName.datagram.packets-written-rate").getCount());
+    assertEquals(10_000, registry.getMeters().get("baseName.datagram.bytes-written-rate").getCount());
+    Map<String, Long> top = (Map<String, Long>) registry.getGauges().get("baseName.datagram.top-remote-hosts").getValue();
+    assertEquals(Collections.singletonMap("10.0.0.1", 110_000L), top);
+  }
+
+  @Test
+  public void testTopRemoteHosts() {
+    DropwizardMetricsOptions options = new DropwizardMetricsOptions().setTopRemoteHosts(2);
+    VertxMetricsImpl vmi = vertxMetrics(options);
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.";
+    SocketAddress heavy = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    SocketAddress other = SocketAddress.inetSocketAddress(1234, "10.0.0.2");
+    for (int i = 0;i < 1000;i++) {
+      metrics.bytesRead(null, heavy, 1000);
+      metrics.bytesWritten(null, other, 500);
+      // many hosts exchanging a few bytes, more than the sketch counts
+      metrics.bytesRead(null, SocketAddress.inetSocketAddress(1234, "10.0.1." + (i % 250)), 10);
+    }
+
+    Map<String, Long> top = (Map<String, Long>) registry.getGauges().get(name + "top-remote-hosts").getValue();
+    assertEquals(2, top.size());
+    assertEquals("[10.0.0.1, 10.0.0.2]", top.keySet().toString());
+    assertTrue(top.get("10.0.0.1") >= 1_000_000);
+    assertTrue(top.get("10.0.0.2") >= 500_000);
+    // the snapshots report the map as a JSON object
+    JsonObject json = vmi.metrics(name + "top-remote-hosts").getJsonObject(name + "top-remote-hosts").getJsonObject("value");
+    assertEquals(top.get("10.0.0.1"), json.getLong("10.0.0.1"));
+    assertEquals(1_010_000, registry.getMeters().get(name + "bytes-read-rate").getCount());
+    assertEquals(500_000, registry.getMeters().get(name + "bytes-written-rate").getCount());
+  }
+
+  @Test
+  public void testTopRemoteHostsDisabled() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions());
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    metrics.bytesRead(null, SocketAddress.inetSocketAddress(1234, "10.0.0.1"), 1000);
+    assertNull(registry.getGauges().get("baseName.net.servers.localhost:8080.top-remote-hosts"));
+  }
+
+  @Test
+  public void testRemoteHostConnectionsCardinalityLimit() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setMaxRemoteHosts(2));
+
+    TransportMetrics<Object> metrics = (TransportMetrics<Object>) vmi.createTcpServerMetrics(null, "net", SocketAddress.inetSocketAddress(8080, "localhost"));
+    String name = "baseName.net.servers.localhost:8080.open-connections.";
+    SocketAddress a = SocketAddress.inetSocketAddress(1234, "10.0.0.1");
+    SocketAddress b = SocketAddress.inetSocketAddress(1234, "10.0.0.2");
+    SocketAddress c = SocketAddress.inetSocketAddress(1234, "10.0.0.3");
+    Object connA = metrics.connected(a, null);
+    Object connB = metrics.connected(b, null);
+    Object connC = metrics.connected(c, null);
+    assertEquals(1, registry.getCounters().get(name + "__overflow__").getCount());
+    assertFalse(registry.getCounters().containsKey(name + "10.0.0.3"));
+    metrics.disconnected(connC, c);
+
+    // an idle host makes room for a new host
+    metrics.disconnected(connA, a);
+    SocketAddress d = SocketAddress.inetSocketAddress(1234, "10.0.0.4");
+    metrics.connected(d, null);
+    assertEquals(1, registry.getCounters().get(name + "10.0.0.4").getCount());
+    assertFalse(registry.getCounters().containsKey(name + "10.0.0.1"));
+    assertEquals(1, registry.getCounters().get(name + "10.0.0.2").getCount());
+    metrics.disconnected(connB, b);
+  }
+
+  @Test
+  public void testLeanEventBusMetrics() {
+    VertxMetricsImpl vmi = vertxMetrics(new DropwizardMetricsOptions()
+      .setLeanEventBusMetricsEnabled(true));
+
+    EventBusMetrics<Object> metrics = (EventBusMetrics<Object>) vmi.createEventBusMetrics();
+    Object handler = metrics.handlerRegistered("a");
+    metrics.messageSent("a", false, true, false);
+    metrics.messageSent("a", false, false, true);
+    metrics.messageSent("a", true, true, false);
+    metrics.messageReceived("a", false, true, 1);
+    metrics.messageReceived("a", false, false, 0);
+    metrics.scheduleMessage(handler, true);
+    metrics.scheduleMessage(handler, false);
+    metrics.messageDelivered(handler, true);
+
+    // the totals are gauges, nothing can update them
+    assertFalse(registry.getMeters().containsKey("baseName.eventbus.messages.sent"));
+    assertFalse(registry.getCounters().containsKey("baseName.eventbus.messages.pending"));
+    assertEquals(1L, registry.getGauges().get("baseName.eventbus.messages.pending").getValue());
+    assertEquals(2L, ((Counting) registry.getGauges().get("baseName.eventbus.messages.sent")).getCount());
+    assertEquals(1L, ((Counting) registry.getGauges().get("baseName.eventbus.messages.published")).getCount());
+    assertEquals(2L, ((Counting) registry.getGauges().get("baseName.eventbus.messages.received")).getCount());
+    assertEquals(1L, ((Counting) registry.getGauges().get("baseName.eventbus.messages.delivered")).getCount());
+
+    // the metrics service reports them as usual
+    JsonObject json = vmi.metrics("baseName.eventbus.messages.sent").getJsonObject("baseName.eventbus.messages.sent");
+    assertEquals("meter", json.getString("type"));
+    assertEquals(2L, (long) json.getLong("count"));
+    assertNotNull(json.getLong("oneSecondRate"));
+    json = vmi.metrics("baseName.eventbus.messages.pending").getJsonObject("baseName.eventbus.messages.pending");
+    assertEquals("counter", json.getString("type"));
+    assertEquals(1L, (long) json.getLong("count"));
+  }
 }